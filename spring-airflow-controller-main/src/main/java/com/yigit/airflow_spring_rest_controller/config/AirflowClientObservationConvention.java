@@ -0,0 +1,104 @@
+package com.yigit.airflow_spring_rest_controller.config;
+
+import io.micrometer.common.KeyValue;
+import org.springframework.web.reactive.function.client.ClientHttpObservationDocumentation.LowCardinalityKeyNames;
+import org.springframework.web.reactive.function.client.ClientRequestObservationContext;
+import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Names the Airflow endpoint of a request in the uri tag of the http.client.requests timers.
+ *
+ * Requests built with a URI template are tagged with the template. Requests built with a URI builder
+ * function or an expanded URI carry no template, their path is turned back into one
+ * by replacing the segment following an Airflow collection with the variable name the services use,
+ * e.g. /dags/example/dagRuns becomes /dags/{dagId}/dagRuns. Either way the tag never contains IDs and
+ * is relative to the API base path, so both kinds of calls to an endpoint share one timer.
+ */
+public class AirflowClientObservationConvention extends DefaultClientRequestObservationConvention {
+
+    private static final Map<String, String> COLLECTION_VARIABLES = Map.ofEntries(
+        Map.entry("dags", "{dagId}"),
+        Map.entry("dagRuns", "{dagRunId}"),
+        Map.entry("taskInstances", "{taskId}"),
+        Map.entry("tasks", "{taskId}"),
+        Map.entry("logs", "{tryNumber}"),
+        Map.entry("xcomEntries", "{xcomKey}"),
+        Map.entry("importErrors", "{importErrorId}"),
+        Map.entry("datasets", "{uri}"),
+        Map.entry("variables", "{variableKey}"),
+        Map.entry("pools", "{poolName}"),
+        Map.entry("connections", "{connectionId}"));
+
+    /**
+     * Segments that are part of the endpoint even where an ID is expected, e.g. /dags/~/dagRuns/list
+     */
+    private static final Set<String> LITERALS = Set.of("~", "list");
+
+    private final String basePath;
+
+    /**
+     * @param basePath path of the base URL, removed from request paths so they match the templates
+     */
+    public AirflowClientObservationConvention(String basePath) {
+        this.basePath = basePath;
+    }
+
+    @Override
+    protected KeyValue uri(ClientRequestObservationContext context) {
+        String template = context.getUriTemplate();
+        if ((template == null || !template.contains("{")) && context.getRequest() != null) {
+            return LowCardinalityKeyNames.URI.withValue(template(context.getRequest().url().getRawPath()));
+        }
+        // Templates are recorded expanded against the base URL
+        KeyValue uri = super.uri(context);
+        return uri.getValue().startsWith("/") ? LowCardinalityKeyNames.URI.withValue(template(uri.getValue())) : uri;
+    }
+
+    /**
+     * Turns the path of an Airflow request into its endpoint template
+     */
+    public String template(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        if (path.startsWith(basePath)) {
+            path = path.substring(basePath.length());
+        }
+        String[] segments = path.split("/");
+        StringBuilder template = new StringBuilder();
+        String variable = null;
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            template.append('/');
+            if (variable != null && !LITERALS.contains(segment)) {
+                template.append(variable);
+                variable = null;
+            } else if (isNumber(segment)) {
+                // Map index of a mapped task instance
+                template.append("{mapIndex}");
+            } else {
+                template.append(segment);
+                variable = COLLECTION_VARIABLES.get(segment);
+            }
+        }
+        return template.isEmpty() ? "/" : template.toString();
+    }
+
+    private static boolean isNumber(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,86 @@
+package com.yigit.airflow_spring_rest_controller.config;
+
+import com.yigit.airflow_spring_rest_controller.dto.metrics.ConnectionPoolStats;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects metrics of the Airflow connection pool.
+ *
+ * Reactor Netty registers one pool per remote address and hands us its live gauges
+ * (active, idle, pending). Acquire latency is measured around the connection Mono
+ * of every request, which covers both waiting for a pooled connection and opening a new one.
+ */
+@Component
+public class AirflowConnectionPoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireErrors = new LongAdder();
+    private final LongAdder acquireTimeNanos = new LongAdder();
+    private final AtomicLong maxAcquireTimeNanos = new AtomicLong();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(remoteAddress.toString(), metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(remoteAddress.toString());
+    }
+
+    /**
+     * Wraps the connection acquisition of a request and records how long it took
+     */
+    public Mono<? extends Connection> timeAcquire(Mono<? extends Connection> connect) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return connect
+                .doOnSuccess(connection -> recordAcquire(System.nanoTime() - start))
+                .doOnError(error -> acquireErrors.increment());
+        });
+    }
+
+    private void recordAcquire(long nanos) {
+        acquireCount.increment();
+        acquireTimeNanos.add(nanos);
+        maxAcquireTimeNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Returns a point-in-time view of the pool, summed over all remote hosts
+     */
+    public ConnectionPoolStats snapshot() {
+        ConnectionPoolStats stats = new ConnectionPoolStats();
+        for (ConnectionPoolMetrics metrics : pools.values()) {
+            stats.setActive(stats.getActive() + metrics.acquiredSize());
+            stats.setIdle(stats.getIdle() + metrics.idleSize());
+            stats.setPending(stats.getPending() + metrics.pendingAcquireSize());
+            stats.setAllocated(stats.getAllocated() + metrics.allocatedSize());
+            stats.setMaxConnections(stats.getMaxConnections() + metrics.maxAllocatedSize());
+        }
+        long count = acquireCount.sum();
+        stats.setHosts(pools.size());
+        stats.setAcquireCount(count);
+        stats.setAcquireErrors(acquireErrors.sum());
+        stats.setAverageAcquireMillis(count == 0 ? 0 : toMillis(acquireTimeNanos.sum() / (double) count));
+        stats.setMaxAcquireMillis(toMillis(maxAcquireTimeNanos.get()));
+        return stats;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
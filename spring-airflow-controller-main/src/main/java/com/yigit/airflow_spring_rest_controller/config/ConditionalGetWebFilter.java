@@ -0,0 +1,136 @@
+package com.yigit.airflow_spring_rest_controller.config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Conditional GET support for the DAG, DAG run and task instance reads.
+ *
+ * Successful JSON responses below /api/v1/dags get a strong ETag computed from a SHA-256 hash of the body.
+ * When the request carries a matching If-None-Match the body is dropped and 304 Not Modified is sent instead.
+ * Streaming responses (SSE, NDJSON) and other media types are passed through untouched.
+ */
+@Component
+public class ConditionalGetWebFilter implements WebFilter {
+
+    private static final String PATH_PREFIX = "/api/v1/dags";
+
+    private final boolean enabled;
+
+    public ConditionalGetWebFilter(@Value("${gateway.etag.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled
+                || request.getMethod() != HttpMethod.GET
+                || !request.getPath().pathWithinApplication().value().startsWith(PATH_PREFIX)) {
+            return chain.filter(exchange);
+        }
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        return chain.filter(exchange.mutate().response(new ETagResponse(exchange.getResponse(), ifNoneMatch)).build());
+    }
+
+    /**
+     * Buffers the encoded body to compute its ETag before anything is committed
+     */
+    private static class ETagResponse extends ServerHttpResponseDecorator {
+
+        private final List<String> ifNoneMatch;
+
+        ETagResponse(ServerHttpResponse delegate, List<String> ifNoneMatch) {
+            super(delegate);
+            this.ifNoneMatch = ifNoneMatch;
+        }
+
+        @Override
+        @NonNull
+        public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+            if (!isTaggable()) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(buffer -> {
+                String eTag = eTag(buffer);
+                HttpHeaders headers = getHeaders();
+                headers.setETag(eTag);
+                // Let the browser keep the response but revalidate it on every use
+                headers.setCacheControl("private, no-cache");
+
+                if (matches(eTag)) {
+                    DataBufferUtils.release(buffer);
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    headers.remove(HttpHeaders.CONTENT_TYPE);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    return getDelegate().setComplete();
+                }
+                headers.setContentLength(buffer.readableByteCount());
+                return super.writeWith(Mono.just(buffer));
+            });
+        }
+
+        private boolean isTaggable() {
+            HttpStatus status = getStatusCode() == null ? HttpStatus.OK : HttpStatus.resolve(getStatusCode().value());
+            MediaType contentType = getHeaders().getContentType();
+            return status == HttpStatus.OK
+                && contentType != null
+                && MediaType.APPLICATION_JSON.isCompatibleWith(contentType);
+        }
+
+        private boolean matches(String eTag) {
+            for (String candidate : ifNoneMatch) {
+                // If-None-Match uses the weak comparison
+                if ("*".equals(candidate) || stripWeak(candidate).equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static String stripWeak(String eTag) {
+            return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        }
+
+        private static String eTag(DataBuffer buffer) {
+            MessageDigest digest = sha256();
+            try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer byteBuffer = iterator.next();
+                    digest.update(byteBuffer);
+                }
+            }
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + "\"";
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.yigit.airflow_spring_rest_controller.config;
+
+import com.yigit.airflow_spring_rest_controller.security.JwksManager;
+import com.yigit.airflow_spring_rest_controller.security.VerifiedJwtCache;
+import com.yigit.airflow_spring_rest_controller.service.AirflowRequestCoalescer;
+import com.yigit.airflow_spring_rest_controller.service.audit.AuditLogWriter;
+import com.yigit.airflow_spring_rest_controller.service.audit.AuditPartitionManager;
+import com.yigit.airflow_spring_rest_controller.service.cache.DagCatalogCache;
+import com.yigit.airflow_spring_rest_controller.service.lock.JobLockService;
+import com.yigit.airflow_spring_rest_controller.service.logs.TaskLogCache;
+import com.yigit.airflow_spring_rest_controller.service.watch.StateWatchService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Metrics of the gateway, scraped from /actuator/prometheus.
+ *
+ * Spring Boot instruments the inbound requests (http.server.requests), the outbound requests of the
+ * WebClients built from its builder (http.client.requests), repository invocations and, through
+ * r2dbc-proxy, every R2DBC query (r2dbc.query). Reactor Netty adds connection, data and event loop
+ * metrics of the server and the Airflow client. The statistics the gateway components already keep
+ * are published as gauges and function counters, read at scrape time.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Reactor Netty server metrics. Paths are cut after the resource name, the request timers
+     * of Spring Boot are tagged with the full route template already.
+     */
+    @Bean
+    public NettyServerCustomizer nettyServerMetricsCustomizer() {
+        return httpServer -> httpServer.metrics(true, MetricsConfig::resourcePath);
+    }
+
+    @Bean
+    public MeterBinder gatewayMeterBinder(AirflowConnectionPoolMetrics poolMetrics, DagCatalogCache dagCatalogCache,
+                                          AirflowRequestCoalescer requestCoalescer, TaskLogCache taskLogCache,
+                                          StateWatchService stateWatchService, AuditLogWriter auditLogWriter,
+                                          VerifiedJwtCache verifiedJwtCache, JwksManager jwksManager,
+                                          JobLockService jobLockService, AuditPartitionManager auditPartitionManager) {
+        return registry -> {
+            gauge(registry, "gateway.airflow.pool.connections", poolMetrics, p -> p.snapshot().getActive(), "state", "active");
+            gauge(registry, "gateway.airflow.pool.connections", poolMetrics, p -> p.snapshot().getIdle(), "state", "idle");
+            gauge(registry, "gateway.airflow.pool.pending", poolMetrics, p -> p.snapshot().getPending());
+            counter(registry, "gateway.airflow.pool.acquires", poolMetrics, p -> p.snapshot().getAcquireCount(), "result", "success");
+            counter(registry, "gateway.airflow.pool.acquires", poolMetrics, p -> p.snapshot().getAcquireErrors(), "result", "error");
+
+            counter(registry, "gateway.airflow.coalescing.calls", requestCoalescer, c -> c.stats().getUpstreamCalls(), "result", "upstream");
+            counter(registry, "gateway.airflow.coalescing.calls", requestCoalescer, c -> c.stats().getCollapsedCalls(), "result", "collapsed");
+            counter(registry, "gateway.airflow.coalescing.calls", requestCoalescer, c -> c.stats().getCancelledCalls(), "result", "cancelled");
+            gauge(registry, "gateway.airflow.coalescing.in.flight", requestCoalescer, c -> c.stats().getInFlight());
+
+            counter(registry, "gateway.cache.requests", dagCatalogCache, c -> c.stats().getHits(), "cache", "dag-catalog", "result", "hit");
+            counter(registry, "gateway.cache.requests", dagCatalogCache, c -> c.stats().getStaleHits(), "cache", "dag-catalog", "result", "stale-hit");
+            counter(registry, "gateway.cache.requests", dagCatalogCache, c -> c.stats().getMisses(), "cache", "dag-catalog", "result", "miss");
+            counter(registry, "gateway.cache.evictions", dagCatalogCache, c -> c.stats().getEvictions(), "cache", "dag-catalog");
+            gauge(registry, "gateway.cache.entries", dagCatalogCache, c -> c.stats().getEntries(), "cache", "dag-catalog");
+
+            counter(registry, "gateway.cache.requests", taskLogCache, c -> c.stats().getHits(), "cache", "task-log", "result", "hit");
+            counter(registry, "gateway.cache.requests", taskLogCache, c -> c.stats().getMisses(), "cache", "task-log", "result", "miss");
+            counter(registry, "gateway.cache.evictions", taskLogCache, c -> c.stats().getEvictions(), "cache", "task-log");
+            gauge(registry, "gateway.cache.entries", taskLogCache, c -> c.stats().getEntries(), "cache", "task-log");
+            gauge(registry, "gateway.cache.size.bytes", taskLogCache, c -> c.stats().getSizeBytes(), "cache", "task-log");
+
+            counter(registry, "gateway.cache.requests", verifiedJwtCache, c -> c.stats().getHits(), "cache", "jwt", "result", "hit");
+            counter(registry, "gateway.cache.requests", verifiedJwtCache, c -> c.stats().getMisses(), "cache", "jwt", "result", "miss");
+            counter(registry, "gateway.cache.evictions", verifiedJwtCache, c -> c.stats().getEvictions(), "cache", "jwt");
+            gauge(registry, "gateway.cache.entries", verifiedJwtCache, c -> c.stats().getEntries(), "cache", "jwt");
+
+            gauge(registry, "gateway.watch.active", stateWatchService, w -> w.stats().getWatches());
+            gauge(registry, "gateway.watch.subscribers", stateWatchService, w -> w.stats().getSubscribers());
+            counter(registry, "gateway.watch.polls", stateWatchService, w -> w.stats().getPolls() - w.stats().getPollFailures(), "result", "success");
+            counter(registry, "gateway.watch.polls", stateWatchService, w -> w.stats().getPollFailures(), "result", "failure");
+            counter(registry, "gateway.watch.events", stateWatchService, w -> w.stats().getEventsPublished());
+
+            counter(registry, "gateway.audit.writes", auditLogWriter, w -> w.stats().getSynchronousWrites(), "mode", "synchronous");
+            counter(registry, "gateway.audit.writes", auditLogWriter, w -> w.stats().getBatchedRows(), "mode", "batched");
+            counter(registry, "gateway.audit.writes", auditLogWriter, w -> w.stats().getOverflowWrites(), "mode", "overflow");
+            counter(registry, "gateway.audit.write.batches", auditLogWriter, w -> w.stats().getBatches());
+            counter(registry, "gateway.audit.write.failures", auditLogWriter, w -> w.stats().getFailedRows());
+            gauge(registry, "gateway.audit.write.buffered", auditLogWriter, w -> w.stats().getBuffered());
+            gauge(registry, "gateway.audit.partitions.default.rows", auditPartitionManager, m -> m.stats().getDefaultPartitionRows());
+            counter(registry, "gateway.audit.partitions.moved.rows", auditPartitionManager, m -> m.stats().getMovedRows());
+            counter(registry, "gateway.audit.partitions.archived", auditPartitionManager, m -> m.stats().getArchivedPartitions());
+            counter(registry, "gateway.audit.partitions.failures", auditPartitionManager, m -> m.stats().getFailures());
+
+            gauge(registry, "gateway.jwks.keys", jwksManager, j -> j.stats().getKeys());
+            counter(registry, "gateway.jwks.refreshes", jwksManager, j -> j.stats().getRefreshes(), "result", "success");
+            counter(registry, "gateway.jwks.refreshes", jwksManager, j -> j.stats().getRefreshFailures(), "result", "failure");
+            counter(registry, "gateway.jwks.unknown.keys", jwksManager, j -> j.stats().getUnknownKeyRefetches(), "result", "refetched");
+            counter(registry, "gateway.jwks.unknown.keys", jwksManager, j -> j.stats().getUnknownKeyRejections(), "result", "rejected");
+
+            counter(registry, "gateway.jobs.leases", jobLockService, j -> j.stats().getAcquired(), "result", "acquired");
+            counter(registry, "gateway.jobs.leases", jobLockService, j -> j.stats().getSkipped(), "result", "skipped");
+            counter(registry, "gateway.jobs.leases", jobLockService, j -> j.stats().getLost(), "result", "lost");
+            counter(registry, "gateway.jobs.lease.errors", jobLockService, j -> j.stats().getErrors());
+        };
+    }
+
+    /**
+     * First three path segments, e.g. /api/v1/dags for /api/v1/dags/example/dagRuns
+     */
+    static String resourcePath(String uri) {
+        int end = uri.indexOf('?');
+        String path = end >= 0 ? uri.substring(0, end) : uri;
+        int slashes = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/' && ++slashes == 4) {
+                return path.substring(0, i);
+            }
+        }
+        return path.isEmpty() ? "/" : path;
+    }
+
+    // Components are held by the context, the weak references of the meters do not lose them
+    private static <T> void gauge(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value, String... tags) {
+        Gauge.builder(name, source, value).tags(tags).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value, String... tags) {
+        FunctionCounter.builder(name, source, value).tags(tags).register(registry);
+    }
+}
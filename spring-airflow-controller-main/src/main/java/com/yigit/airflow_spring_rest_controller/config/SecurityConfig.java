@@ -1,19 +1,27 @@
 package com.yigit.airflow_spring_rest_controller.config;
 
+import com.yigit.airflow_spring_rest_controller.security.CachingJwtDecoder;
+import com.yigit.airflow_spring_rest_controller.security.JwksManager;
+import com.yigit.airflow_spring_rest_controller.security.VerifiedJwtCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
-import org.springframework.security.oauth2.jwt.ReactiveJwtDecoders;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 
+import java.net.InetSocketAddress;
 import java.util.Arrays;
 
 /**
@@ -30,6 +38,15 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthConverter jwtAuthConverter;
 
+    @Autowired
+    private VerifiedJwtCache verifiedJwtCache;
+
+    @Autowired
+    private JwksManager jwksManager;
+
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     // Paths that are publicly accessible
     private static final String[] PUBLIC_PATHS = {
         "/v3/api-docs/**",
@@ -40,6 +57,36 @@ public class SecurityConfig {
         "/api/v1/auth/token"
     };
 
+    // Actuator endpoints served on the management port, which is not published with the API port
+    private static final String[] MANAGEMENT_PATHS = {
+        "/actuator/health",
+        "/actuator/prometheus"
+    };
+
+    /**
+     * Filter chain of the management port: health and the Prometheus scrape are open, everything else is denied.
+     * The actuator is not served on the API port, where its paths require authentication like any other.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityWebFilterChain managementSecurityFilterChain(ServerHttpSecurity http) {
+        return http
+            .securityMatcher(exchange -> {
+                InetSocketAddress local = exchange.getRequest().getLocalAddress();
+                return managementPort > 0 && local != null && local.getPort() == managementPort
+                    ? ServerWebExchangeMatcher.MatchResult.match()
+                    : ServerWebExchangeMatcher.MatchResult.notMatch();
+            })
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .authorizeExchange(exchanges -> exchanges
+                .pathMatchers(MANAGEMENT_PATHS).permitAll()
+                .anyExchange().denyAll()
+            )
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            .build();
+    }
+
     /**
      * Spring Security filter chain definition.
      * This method configures application security rules and authentication mechanisms.
@@ -92,10 +139,14 @@ public class SecurityConfig {
 
     /**
      * JWT token decoder definition.
-     * This decoder verifies the validity and signature of JWT tokens.
+     * This decoder verifies the validity and signature of JWT tokens, repeated tokens are served from the cache.
+     * Signing keys come from the JwksManager and the issuer is checked against the configuration,
+     * so no OIDC discovery request to Keycloak is needed at startup.
      */
     @Bean
     public ReactiveJwtDecoder jwtDecoder() {
-        return ReactiveJwtDecoders.fromIssuerLocation(issuerUri);
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withJwkSource(jwksManager::select).build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return new CachingJwtDecoder(decoder, verifiedJwtCache);
     }
 } 
\ No newline at end of file
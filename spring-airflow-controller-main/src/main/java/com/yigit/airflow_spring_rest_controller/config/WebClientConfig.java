@@ -1,6 +1,9 @@
 package com.yigit.airflow_spring_rest_controller.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -12,15 +15,20 @@ import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.http.codec.json.Jackson2JsonEncoder;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
 import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebClientConfig {
 
     private static final String API_VERSION = "/api/v1";
     private static final int MAX_MEMORY_SIZE = 16 * 1024 * 1024; // 16MB
+    private static final String POOL_NAME = "airflow";
 
     @Value("${airflow.api.base-url}")
     private String baseUrl;
@@ -31,11 +39,71 @@ public class WebClientConfig {
     @Value("${airflow.api.password}")
     private String password;
 
+    // Connection pool settings (limits apply per remote host)
+    @Value("${airflow.client.pool.max-connections:100}")
+    private int maxConnections;
+
+    @Value("${airflow.client.pool.pending-acquire-max-count:500}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${airflow.client.pool.pending-acquire-timeout:10s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${airflow.client.pool.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${airflow.client.pool.max-life-time:5m}")
+    private Duration maxLifeTime;
+
+    @Value("${airflow.client.pool.evict-in-background:30s}")
+    private Duration evictInBackground;
+
+    // Timeouts and protocol settings
+    @Value("${airflow.client.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${airflow.client.read-timeout:30s}")
+    private Duration readTimeout;
+
+    @Value("${airflow.client.write-timeout:30s}")
+    private Duration writeTimeout;
+
+    @Value("${airflow.client.response-timeout:30s}")
+    private Duration responseTimeout;
+
+    @Value("${airflow.client.http2:false}")
+    private boolean http2;
+
+    @Value("${airflow.client.wiretap:false}")
+    private boolean wiretap;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private AirflowConnectionPoolMetrics poolMetrics;
+
+    /**
+     * Dedicated connection pool for the Airflow webserver.
+     * Idle and expired connections are evicted in the background so that
+     * sockets closed by the server are not handed out to requests.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider airflowConnectionProvider() {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInBackground)
+                .metrics(true, () -> poolMetrics)
+                .build();
+    }
+
     @Bean
-    public WebClient airflowWebClient() {
+    public WebClient airflowWebClient(WebClient.Builder webClientBuilder, ConnectionProvider airflowConnectionProvider) {
+        AirflowClientObservationConvention observationConvention = new AirflowClientObservationConvention(API_VERSION);
         String credentials = username + ":" + password;
         String encodedCredentials = Base64.getEncoder().encodeToString(credentials.getBytes());
 
@@ -51,15 +119,35 @@ public class WebClientConfig {
                 .build();
 
         // HTTP istemcisini özelleştir
-        HttpClient httpClient = HttpClient.create()
+        HttpClient httpClient = HttpClient.create(airflowConnectionProvider)
                 .followRedirect(true)
-                .wiretap(true);
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout)
+                .doOnRequest((request, connection) -> connection
+                        .addHandlerLast(new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(writeTimeout.toMillis(), TimeUnit.MILLISECONDS)))
+                .mapConnect(poolMetrics::timeAcquire)
+                // Reactor Netty connection, DNS and data metrics, tagged with the endpoint template
+                .metrics(true, observationConvention::template)
+                .wiretap(wiretap);
+
+        if (http2) {
+            // h2 is negotiated via ALPN over TLS and via upgrade (h2c) over plain HTTP;
+            // HTTP/1.1 stays enabled for Airflow webservers that do not support HTTP/2
+            httpClient = baseUrl.startsWith("https")
+                    ? httpClient.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                    : httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
 
-        return WebClient.builder()
+        // The builder of Spring Boot records http.client.requests timers, named by endpoint template
+        return webClientBuilder
                 .baseUrl(baseUrl + API_VERSION)
                 .defaultHeader(HttpHeaders.AUTHORIZATION, "Basic " + encodedCredentials)
                 .exchangeStrategies(exchangeStrategies)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .observationConvention(observationConvention)
                 .build();
     }
-} 
\ No newline at end of file
+}
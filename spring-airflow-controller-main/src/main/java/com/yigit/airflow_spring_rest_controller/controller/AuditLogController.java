@@ -1,21 +1,31 @@
 package com.yigit.airflow_spring_rest_controller.controller;
 
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditAnalytics;
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditAnalyticsQuery;
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditLogPage;
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditLogQuery;
 import com.yigit.airflow_spring_rest_controller.entity.AuditLog;
 import com.yigit.airflow_spring_rest_controller.entity.AuditLogOperation;
 import com.yigit.airflow_spring_rest_controller.service.AuditLogService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * Controller for Audit Log operations
  * Provides endpoints to view audit logs with role-based access control
@@ -54,6 +64,130 @@ public class AuditLogController {
         return auditLogService.getAuditLogs();
     }
     
+    /**
+     * Get one page of audit logs (role-based)
+     */
+    @Operation(
+        summary = "Get a page of audit logs",
+        description = "Retrieves audit logs newest first, one page at a time. Pass the returned next_cursor to get the following page. " +
+                     "Admin users can filter by any user, regular users only see their own logs."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved audit logs"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires authentication")
+    })
+    @GetMapping("/page")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<AuditLogPage> getAuditLogPage(
+        @Parameter(description = "User ID, only honored for admin users") @RequestParam(required = false) String userId,
+        @RequestParam(required = false) String dagId,
+        @RequestParam(required = false) String dagRunId,
+        @Parameter(description = "Operations to include") @RequestParam(required = false) List<AuditLogOperation> operation,
+        @Parameter(description = "Start of the time range, inclusive", example = "2024-01-01T00:00:00")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @Parameter(description = "End of the time range, exclusive", example = "2024-02-01T00:00:00")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @Parameter(description = "next_cursor of the previous page") @RequestParam(required = false) String cursor,
+        @Parameter(description = "Page size") @RequestParam(defaultValue = "0") int limit
+    ) {
+        log.info("Request received to get a page of audit logs");
+        return auditLogService.getAuditLogPage(AuditLogQuery.builder()
+            .userId(userId)
+            .dagId(dagId)
+            .dagRunId(dagRunId)
+            .operations(operation)
+            .from(from)
+            .to(to)
+            .cursor(cursor)
+            .limit(limit)
+            .build());
+    }
+    
+    /**
+     * Export audit logs as newline delimited JSON (role-based)
+     */
+    @Operation(
+        summary = "Export audit logs",
+        description = "Streams all audit logs matching the filters newest first as newline delimited JSON, one log per line. " +
+                     "Admin users can filter by any user, regular users only see their own logs."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Export started"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires authentication")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<AuditLog> exportAuditLogs(
+        @Parameter(description = "User ID, only honored for admin users") @RequestParam(required = false) String userId,
+        @RequestParam(required = false) String dagId,
+        @RequestParam(required = false) String dagRunId,
+        @Parameter(description = "Operations to include") @RequestParam(required = false) List<AuditLogOperation> operation,
+        @Parameter(description = "Start of the time range, inclusive", example = "2024-01-01T00:00:00")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @Parameter(description = "End of the time range, exclusive", example = "2024-02-01T00:00:00")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @Parameter(description = "Continue after this cursor") @RequestParam(required = false) String cursor
+    ) {
+        log.info("Request received to export audit logs");
+        return auditLogService.exportAuditLogs(AuditLogQuery.builder()
+            .userId(userId)
+            .dagId(dagId)
+            .dagRunId(dagRunId)
+            .operations(operation)
+            .from(from)
+            .to(to)
+            .cursor(cursor)
+            .build());
+    }
+    
+    /**
+     * Get audit log counts (role-based)
+     */
+    @Operation(
+        summary = "Get audit log analytics",
+        description = "Counts audited operations in a time range, per time bucket and/or grouped by operation, DAG and user, " +
+                     "e.g. triggers per DAG per day (interval=day&groupBy=dag_id&operation=TRIGGER) or who paused the most DAGs " +
+                     "(groupBy=user_id&operation=PAUSE). Counts are kept per hour, time bounds are rounded to hours. " +
+                     "Regular users only get counts of their own operations."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved counts"),
+        @ApiResponse(responseCode = "400", description = "Invalid interval, grouping or time range"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires authentication")
+    })
+    @GetMapping("/analytics")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<AuditAnalytics> getAuditAnalytics(
+        @Parameter(description = "Start of the time range, inclusive, defaults to 7 days before the end", example = "2024-01-01T00:00:00")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @Parameter(description = "End of the time range, exclusive, defaults to the end of the current hour", example = "2024-02-01T00:00:00")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @Parameter(description = "Time bucket: hour, day, week or month. Without an interval one total per group is returned.")
+        @RequestParam(required = false) String interval,
+        @Parameter(description = "Dimensions to group by: operation, dag_id, user_id")
+        @RequestParam(required = false) List<String> groupBy,
+        @Parameter(description = "Operations to count") @RequestParam(required = false) List<AuditLogOperation> operation,
+        @RequestParam(required = false) String dagId,
+        @Parameter(description = "User ID, only honored for admin users") @RequestParam(required = false) String userId,
+        @Parameter(description = "Maximum number of rows") @RequestParam(defaultValue = "0") int limit
+    ) {
+        log.info("Request received to get audit log analytics");
+        return auditLogService.getAnalytics(AuditAnalyticsQuery.builder()
+            .from(from)
+            .to(to)
+            .interval(interval)
+            .groupBy(groupBy)
+            .operations(operation)
+            .dagId(dagId)
+            .userId(userId)
+            .limit(limit)
+            .build());
+    }
+    
     /**
      * Get audit logs for a specific DAG (role-based)
      */
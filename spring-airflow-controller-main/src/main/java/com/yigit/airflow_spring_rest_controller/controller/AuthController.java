@@ -4,14 +4,13 @@ import com.yigit.airflow_spring_rest_controller.dto.auth.AuthResponse;
 import com.yigit.airflow_spring_rest_controller.dto.auth.LoginRequest;
 import com.yigit.airflow_spring_rest_controller.dto.auth.TokenResponse;
 import com.yigit.airflow_spring_rest_controller.exception.AuthenticationException;
+import com.yigit.airflow_spring_rest_controller.security.CurrentUser;
 import com.yigit.airflow_spring_rest_controller.service.KeycloakService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
@@ -92,7 +91,6 @@ public class AuthController {
     /**
      * Kullanıcı kimlik doğrulamasını kontrol eder
      *
-     * @param jwt JWT token
      * @return Doğrulama sonucu
      */
     @Operation(
@@ -105,9 +103,11 @@ public class AuthController {
     })
     @GetMapping("/verify")
     @ResponseStatus(HttpStatus.OK)
-    public Mono<AuthResponse> verifyCredentials(@AuthenticationPrincipal Jwt jwt) {
-        String username = jwt.getClaimAsString("preferred_username");
-        logger.info("Authentication verified for user: {}", username);
-        return Mono.just(new AuthResponse("Authentication successful for " + username));
+    public Mono<AuthResponse> verifyCredentials() {
+        return CurrentUser.get()
+            .map(user -> {
+                logger.info("Authentication verified for user: {}", user.username());
+                return new AuthResponse("Authentication successful for " + user.username());
+            });
     }
 } 
\ No newline at end of file
@@ -1,26 +1,35 @@
 package com.yigit.airflow_spring_rest_controller.controller;
 
 import com.yigit.airflow_spring_rest_controller.dto.dag.Dag;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagChangeEvent;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagChangePage;
 import com.yigit.airflow_spring_rest_controller.dto.dag.DagCollection;
 import com.yigit.airflow_spring_rest_controller.dto.dag.DagDetail;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagQuery;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagSearchResult;
 import com.yigit.airflow_spring_rest_controller.dto.dag.DagUpdate;
 import com.yigit.airflow_spring_rest_controller.dto.task.TaskCollection;
 import com.yigit.airflow_spring_rest_controller.service.DagService;
+import com.yigit.airflow_spring_rest_controller.service.feed.DagChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.springframework.web.bind.annotation.RequestParam;
-import java.util.ArrayList;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -39,11 +48,16 @@ import org.slf4j.LoggerFactory;
 public class DagController {
 
     private final DagService dagService;
+    private final DagChangeFeed dagChangeFeed;
+    private final Duration heartbeatInterval;
     private static final Logger log = LoggerFactory.getLogger(DagController.class);
 
     @Autowired
-    public DagController(DagService dagService) {
+    public DagController(DagService dagService, DagChangeFeed dagChangeFeed,
+                         @Value("${gateway.dag-feed.heartbeat-interval:15s}") Duration heartbeatInterval) {
         this.dagService = dagService;
+        this.dagChangeFeed = dagChangeFeed;
+        this.heartbeatInterval = heartbeatInterval;
     }
 
     @Operation(
@@ -60,6 +74,10 @@ public class DagController {
                 schema = @Schema(implementation = DagCollection.class)
             )
         ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid page, size or orderBy"
+        ),
         @ApiResponse(
             responseCode = "401",
             description = "Authentication failed"
@@ -71,33 +89,123 @@ public class DagController {
     })
     @GetMapping
     public Mono<DagCollection> getDags(
+        @Parameter(description = "Active or inactive DAGs, active DAGs when omitted")
         @RequestParam(required = false) Boolean isActive,
         @RequestParam(required = false) Boolean isPaused,
+        @Parameter(description = "Matches DAG ID, display name, description, tags and owners")
         @RequestParam(required = false) String search,
+        @Parameter(description = "Matches DAG ID only, evaluated by Airflow")
+        @RequestParam(required = false) String dagIdPattern,
+        @Parameter(description = "Returns DAGs having any of the given tags")
+        @RequestParam(required = false) List<String> tags,
+        @Parameter(description = "Airflow order_by field, prefix with '-' for descending order. With search or isActive=false " +
+                                 "only dag_id, dag_display_name, is_paused, is_active, last_parsed_time and next_dagrun are supported",
+                   example = "-dag_id")
+        @RequestParam(required = false) String orderBy,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size
     ) {
-        return dagService.getDags()
-            .map(dagCollection -> {
-                List<Dag> filteredDags = dagCollection.getDags().stream()
-                    .filter(dag -> isActive == null || dag.getIsActive() == isActive)
-                    .filter(dag -> isPaused == null || dag.getIsPaused() == isPaused)
-                    .filter(dag -> search == null || 
-                        dag.getDagId().toLowerCase().contains(search.toLowerCase()) || 
-                        (dag.getDescription() != null && dag.getDescription().toLowerCase().contains(search.toLowerCase())))
-                    .collect(Collectors.toList());
+        DagQuery query = DagQuery.builder()
+            .isActive(isActive)
+            .isPaused(isPaused)
+            .search(search)
+            .dagIdPattern(dagIdPattern)
+            .tags(tags)
+            .orderBy(orderBy)
+            // Negative values are rejected by the service, overflowing offsets are past the last page
+            .offset((int) Math.max(Integer.MIN_VALUE, Math.min((long) page * size, Integer.MAX_VALUE)))
+            .limit(size)
+            .build();
+        return dagService.getDags(query);
+    }
+
+    @Operation(
+        summary = "Search DAGs",
+        description = "Ranked search over DAG ID, display name, description, tag names and owners. " +
+                     "With prefix=true only DAGs having a field or word starting with the query are returned, " +
+                     "which is suited for autocomplete."
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Search results successfully retrieved",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = DagSearchResult.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Authentication failed"
+        )
+    })
+    // Catalog-wide endpoints live under '~', which Airflow reserves and is never a DAG ID, so they cannot shadow /{dagId}
+    @GetMapping("/~/search")
+    public Mono<DagSearchResult> searchDags(
+        @Parameter(description = "The search text", required = true, example = "etl")
+        @RequestParam("q") String query,
+        @Parameter(description = "Match only prefixes of fields and words")
+        @RequestParam(defaultValue = "false") boolean prefix,
+        @Parameter(description = "Maximum number of results, at most 200")
+        @RequestParam(defaultValue = "20") int limit
+    ) {
+        return dagService.searchDags(query, prefix, Math.max(1, Math.min(limit, 200)));
+    }
 
-                int totalElements = filteredDags.size();
-                int fromIndex = page * size;
-                int toIndex = Math.min(fromIndex + size, totalElements);
+    @Operation(
+        summary = "Get DAG catalog changes",
+        description = "Returns the DAGs added, removed or changed since the cursor, oldest first. " +
+                     "Pass the returned next_cursor to get the following changes. " +
+                     "When reset is true changes have been missed and the DAG list has to be reloaded."
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Changes successfully retrieved",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = DagChangePage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Authentication failed"
+        )
+    })
+    @GetMapping("/~/changes")
+    public Mono<DagChangePage> getDagChanges(
+        @Parameter(description = "next_cursor of the previous page or cursor of the last change seen, omit for all retained changes")
+        @RequestParam(required = false) String after,
+        @Parameter(description = "Maximum number of changes")
+        @RequestParam(defaultValue = "500") int limit
+    ) {
+        return Mono.fromSupplier(() -> dagChangeFeed.changesAfter(after, Math.max(1, Math.min(limit, 5000))));
+    }
 
-                DagCollection paginatedCollection = new DagCollection();
-                paginatedCollection.setDags(fromIndex < totalElements ? 
-                    filteredDags.subList(fromIndex, toIndex) : 
-                    new ArrayList<>());
-                paginatedCollection.setTotalEntries(totalElements);
-                return paginatedCollection;
-            });
+    @Operation(
+        summary = "Stream DAG catalog changes",
+        description = "Streams DAG catalog changes as Server-Sent Events as they are detected. " +
+                     "Reconnecting clients passing Last-Event-ID first receive the retained changes they missed, " +
+                     "or a reset event when changes were missed or the ID is from another gateway instance."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Stream started"),
+        @ApiResponse(responseCode = "401", description = "Authentication failed")
+    })
+    @GetMapping(value = "/~/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<DagChangeEvent>> streamDagChanges(
+        @Parameter(description = "Cursor of the last change seen")
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        Flux<ServerSentEvent<DagChangeEvent>> heartbeat = Flux.interval(heartbeatInterval)
+            .map(tick -> ServerSentEvent.<DagChangeEvent>builder().comment("keep-alive").build());
+        return dagChangeFeed.stream(lastEventId)
+            .map(event -> ServerSentEvent.<DagChangeEvent>builder()
+                .id(event.getCursor())
+                .event(event.getType())
+                .data(event)
+                .build())
+            .mergeWith(heartbeat);
     }
 
     @Operation(
@@ -0,0 +1,202 @@
+package com.yigit.airflow_spring_rest_controller.controller;
+
+import com.yigit.airflow_spring_rest_controller.config.AirflowConnectionPoolMetrics;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.AuditWriterStats;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.CoalescingStats;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.ConnectionPoolStats;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.DagCatalogCacheStats;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.JobLockStats;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.JwksStats;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.JwtCacheStats;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.TaskLogCacheStats;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.UserSyncReport;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.WatchStats;
+import com.yigit.airflow_spring_rest_controller.security.JwksManager;
+import com.yigit.airflow_spring_rest_controller.security.VerifiedJwtCache;
+import com.yigit.airflow_spring_rest_controller.service.AirflowRequestCoalescer;
+import com.yigit.airflow_spring_rest_controller.service.audit.AuditLogWriter;
+import com.yigit.airflow_spring_rest_controller.service.cache.DagCatalogCache;
+import com.yigit.airflow_spring_rest_controller.service.lock.JobLockService;
+import com.yigit.airflow_spring_rest_controller.service.logs.TaskLogCache;
+import com.yigit.airflow_spring_rest_controller.service.synchronization.UserSyncService;
+import com.yigit.airflow_spring_rest_controller.service.watch.StateWatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller exposing runtime statistics of the gateway internals
+ * Only available to admin users
+ */
+@RestController
+@RequestMapping("/api/v1/gateway/stats")
+@PreAuthorize("hasRole('airflow-admin')")
+@Tag(name = "Gateway Stats", description = "Runtime statistics of the gateway")
+public class GatewayStatsController {
+
+    private final AirflowConnectionPoolMetrics poolMetrics;
+    private final DagCatalogCache dagCatalogCache;
+    private final AirflowRequestCoalescer requestCoalescer;
+    private final TaskLogCache taskLogCache;
+    private final StateWatchService stateWatchService;
+    private final AuditLogWriter auditLogWriter;
+    private final VerifiedJwtCache verifiedJwtCache;
+    private final JwksManager jwksManager;
+    private final UserSyncService userSyncService;
+    private final JobLockService jobLockService;
+
+    @Autowired
+    public GatewayStatsController(AirflowConnectionPoolMetrics poolMetrics, DagCatalogCache dagCatalogCache,
+                                  AirflowRequestCoalescer requestCoalescer, TaskLogCache taskLogCache,
+                                  StateWatchService stateWatchService, AuditLogWriter auditLogWriter,
+                                  VerifiedJwtCache verifiedJwtCache, JwksManager jwksManager,
+                                  UserSyncService userSyncService, JobLockService jobLockService) {
+        this.poolMetrics = poolMetrics;
+        this.dagCatalogCache = dagCatalogCache;
+        this.requestCoalescer = requestCoalescer;
+        this.taskLogCache = taskLogCache;
+        this.stateWatchService = stateWatchService;
+        this.auditLogWriter = auditLogWriter;
+        this.verifiedJwtCache = verifiedJwtCache;
+        this.jwksManager = jwksManager;
+        this.userSyncService = userSyncService;
+        this.jobLockService = jobLockService;
+    }
+
+    @Operation(
+        summary = "Get Airflow connection pool statistics",
+        description = "Returns active, idle and pending connections of the Airflow connection pool and the connection acquire latency."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Statistics successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/airflow-pool")
+    public Mono<ConnectionPoolStats> getAirflowPoolStats() {
+        return Mono.fromSupplier(poolMetrics::snapshot);
+    }
+
+    @Operation(
+        summary = "Get DAG catalog cache statistics",
+        description = "Returns hit, miss, stale hit and background refresh counters of the DAG catalog cache."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Statistics successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/dag-cache")
+    public Mono<DagCatalogCacheStats> getDagCacheStats() {
+        return Mono.fromSupplier(dagCatalogCache::stats);
+    }
+
+    @Operation(
+        summary = "Get request coalescing statistics",
+        description = "Returns how many identical Airflow GET requests were sent upstream and how many were collapsed into an in-flight call."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Statistics successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/coalescing")
+    public Mono<CoalescingStats> getCoalescingStats() {
+        return Mono.fromSupplier(requestCoalescer::stats);
+    }
+
+    @Operation(
+        summary = "Get task log cache statistics",
+        description = "Returns size, hit, miss and eviction counters of the on-disk cache for logs of finished task tries."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Statistics successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/log-cache")
+    public Mono<TaskLogCacheStats> getLogCacheStats() {
+        return Mono.fromSupplier(taskLogCache::stats);
+    }
+
+    @Operation(
+        summary = "Get watch statistics",
+        description = "Returns the number of active DAG and DAG run watches, their subscribers and poll counters."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Statistics successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/watches")
+    public Mono<WatchStats> getWatchStats() {
+        return Mono.fromSupplier(stateWatchService::stats);
+    }
+
+    @Operation(
+        summary = "Get audit log writer statistics",
+        description = "Returns buffered entries, written batches and synchronous, overflow and failed writes of the audit log writer."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Statistics successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/audit-writer")
+    public Mono<AuditWriterStats> getAuditWriterStats() {
+        return Mono.fromSupplier(auditLogWriter::stats);
+    }
+
+    @Operation(
+        summary = "Get verified JWT cache statistics",
+        description = "Returns cached tokens and hit, miss, expiration and eviction counters of the verified JWT cache."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Statistics successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/jwt-cache")
+    public Mono<JwtCacheStats> getJwtCacheStats() {
+        return Mono.fromSupplier(verifiedJwtCache::stats);
+    }
+
+    @Operation(
+        summary = "Get JWKS statistics",
+        description = "Returns the known signing keys, where and when they were loaded, the next refresh and refetch counters."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Statistics successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/jwks")
+    public Mono<JwksStats> getJwksStats() {
+        return Mono.fromSupplier(jwksManager::stats);
+    }
+
+    @Operation(
+        summary = "Get Keycloak user synchronization report",
+        description = "Returns counts and phase timings of the last user synchronization run, empty before the first one."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Report successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/user-sync")
+    public Mono<UserSyncReport> getUserSyncReport() {
+        return Mono.fromSupplier(userSyncService::lastReport);
+    }
+
+    @Operation(
+        summary = "Get background job lease statistics",
+        description = "Returns the instance ID, the jobs this instance holds the lease of and acquisition counters."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Statistics successfully retrieved"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - requires admin role")
+    })
+    @GetMapping("/job-locks")
+    public Mono<JobLockStats> getJobLockStats() {
+        return Mono.fromSupplier(jobLockService::stats);
+    }
+}
@@ -1,13 +1,29 @@
 package com.yigit.airflow_spring_rest_controller.controller;
 
 import com.yigit.airflow_spring_rest_controller.service.LogService;
+import com.yigit.airflow_spring_rest_controller.dto.log.LogLineMarker;
+import com.yigit.airflow_spring_rest_controller.dto.log.LogLinePage;
+import com.yigit.airflow_spring_rest_controller.dto.log.LogSearchMatch;
+import com.yigit.airflow_spring_rest_controller.service.logs.LogExportService;
+import com.yigit.airflow_spring_rest_controller.service.logs.LogPageService;
+import com.yigit.airflow_spring_rest_controller.service.logs.LogSearchService;
+import com.yigit.airflow_spring_rest_controller.service.logs.LogSearchService.LogSearchQuery;
+import com.yigit.airflow_spring_rest_controller.service.logs.LogTailService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -16,10 +32,19 @@ import reactor.core.publisher.Mono;
 public class LogController {
 
     private final LogService logService;
+    private final LogTailService logTailService;
+    private final LogSearchService logSearchService;
+    private final LogPageService logPageService;
+    private final LogExportService logExportService;
 
     @Autowired
-    public LogController(LogService logService) {
+    public LogController(LogService logService, LogTailService logTailService, LogSearchService logSearchService,
+                         LogPageService logPageService, LogExportService logExportService) {
         this.logService = logService;
+        this.logTailService = logTailService;
+        this.logSearchService = logSearchService;
+        this.logPageService = logPageService;
+        this.logExportService = logExportService;
     }
 
     @Operation(
@@ -40,4 +65,165 @@ public class LogController {
     ) {
         return logService.getTaskLogs(dagId, dagRunId, taskId, tryNumber);
     }
-} 
\ No newline at end of file
+
+    @Operation(
+        summary = "Stream Task Logs",
+        description = "Stream the raw log of a specific task instance try without size limit. " +
+                     "The log is relayed from Airflow as it is read, so large logs are served in constant memory."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Log stream started"),
+        @ApiResponse(responseCode = "404", description = "Task instance not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}/stream", produces = MediaType.TEXT_PLAIN_VALUE)
+    public Flux<DataBuffer> streamTaskLogs(
+        @Parameter(description = "The DAG ID") @PathVariable String dagId,
+        @Parameter(description = "The DAG run ID") @PathVariable String dagRunId,
+        @Parameter(description = "The task ID") @PathVariable String taskId,
+        @Parameter(description = "The task try number") @RequestParam(required = false, defaultValue = "1") Integer tryNumber,
+        @Parameter(description = "Return the full log instead of Airflow's default chunk") @RequestParam(required = false, defaultValue = "true") boolean fullContent,
+        @Parameter(description = "Continuation token returned by a previous log request") @RequestParam(required = false) String token,
+        @Parameter(description = "Map index of a mapped task") @RequestParam(required = false) Integer mapIndex
+    ) {
+        return logService.streamTaskLogs(dagId, dagRunId, taskId, tryNumber, fullContent, token, mapIndex);
+    }
+
+    @Operation(
+        summary = "Tail Task Logs",
+        description = "Stream newly appended log content of a task instance try as Server-Sent Events. " +
+                     "Emits 'log' events with new content and a final 'end' event with the task state once the try has finished. " +
+                     "All viewers of the same try share one poller against Airflow."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Log tail started"),
+        @ApiResponse(responseCode = "400", description = "Invalid try number"),
+        @ApiResponse(responseCode = "404", description = "Task instance not found, or the try will never run"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> tailTaskLogs(
+        @Parameter(description = "The DAG ID") @PathVariable String dagId,
+        @Parameter(description = "The DAG run ID") @PathVariable String dagRunId,
+        @Parameter(description = "The task ID") @PathVariable String taskId,
+        @Parameter(description = "The task try number") @RequestParam(required = false, defaultValue = "1") Integer tryNumber
+    ) {
+        return logTailService.tail(dagId, dagRunId, taskId, tryNumber);
+    }
+
+    @Operation(
+        summary = "Search Task Logs",
+        description = "Search the log of a task instance on the server and stream the matching lines as NDJSON. " +
+                     "Searches all tries of the task when no try number is given."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Search started"),
+        @ApiResponse(responseCode = "400", description = "Invalid search pattern"),
+        @ApiResponse(responseCode = "404", description = "Task instance not found")
+    })
+    @GetMapping(value = "/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<LogSearchMatch> searchTaskLogs(
+        @Parameter(description = "The DAG ID") @PathVariable String dagId,
+        @Parameter(description = "The DAG run ID") @PathVariable String dagRunId,
+        @Parameter(description = "The task ID") @PathVariable String taskId,
+        @Parameter(description = "The task try number, all tries when omitted") @RequestParam(required = false) Integer tryNumber,
+        @Parameter(description = "Text or regular expression to search for") @RequestParam String pattern,
+        @Parameter(description = "Treat the pattern as a regular expression") @RequestParam(required = false, defaultValue = "false") boolean regex,
+        @Parameter(description = "Ignore case when matching") @RequestParam(required = false, defaultValue = "false") boolean ignoreCase,
+        @Parameter(description = "Number of lines returned before and after each match") @RequestParam(required = false, defaultValue = "0") int context,
+        @Parameter(description = "Maximum number of matches") @RequestParam(required = false, defaultValue = "100") int maxMatches
+    ) {
+        return logSearchService.searchTask(dagId, dagRunId, taskId, tryNumber,
+            new LogSearchQuery(pattern, regex, ignoreCase, context, maxMatches));
+    }
+
+    @Operation(
+        summary = "Search DAG Run Logs",
+        description = "Search the logs of all tries of all tasks of a DAG run in parallel and stream the matching lines as NDJSON."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Search started"),
+        @ApiResponse(responseCode = "400", description = "Invalid search pattern"),
+        @ApiResponse(responseCode = "404", description = "DAG run not found")
+    })
+    @GetMapping(value = "/{dagId}/dagRuns/{dagRunId}/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<LogSearchMatch> searchDagRunLogs(
+        @Parameter(description = "The DAG ID") @PathVariable String dagId,
+        @Parameter(description = "The DAG run ID") @PathVariable String dagRunId,
+        @Parameter(description = "Text or regular expression to search for") @RequestParam String pattern,
+        @Parameter(description = "Treat the pattern as a regular expression") @RequestParam(required = false, defaultValue = "false") boolean regex,
+        @Parameter(description = "Ignore case when matching") @RequestParam(required = false, defaultValue = "false") boolean ignoreCase,
+        @Parameter(description = "Number of lines returned before and after each match") @RequestParam(required = false, defaultValue = "0") int context,
+        @Parameter(description = "Maximum number of matches") @RequestParam(required = false, defaultValue = "100") int maxMatches
+    ) {
+        return logSearchService.searchDagRun(dagId, dagRunId,
+            new LogSearchQuery(pattern, regex, ignoreCase, context, maxMatches));
+    }
+
+    @Operation(
+        summary = "Get Task Log Lines",
+        description = "Return a range of lines of the log of a finished task try. " +
+                     "Lines are located with the line-offset index of the log cache, the log is not scanned from its start."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Lines retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Task instance not found"),
+        @ApiResponse(responseCode = "409", description = "The task try has not finished yet")
+    })
+    @GetMapping("/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}/lines")
+    public Mono<LogLinePage> getTaskLogLines(
+        @Parameter(description = "The DAG ID") @PathVariable String dagId,
+        @Parameter(description = "The DAG run ID") @PathVariable String dagRunId,
+        @Parameter(description = "The task ID") @PathVariable String taskId,
+        @Parameter(description = "The task try number") @RequestParam(required = false, defaultValue = "1") Integer tryNumber,
+        @Parameter(description = "First line to return, starting at 1") @RequestParam(required = false, defaultValue = "1") long from,
+        @Parameter(description = "Number of lines to return") @RequestParam(required = false, defaultValue = "1000") int count
+    ) {
+        return logPageService.getLines(dagId, dagRunId, taskId, tryNumber, from, count);
+    }
+
+    @Operation(
+        summary = "Find Error In Task Log",
+        description = "Find the next (or previous) ERROR or WARNING line of the log of a finished task try."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Line found"),
+        @ApiResponse(responseCode = "404", description = "No matching line"),
+        @ApiResponse(responseCode = "409", description = "The task try has not finished yet")
+    })
+    @GetMapping("/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}/markers")
+    public Mono<LogLineMarker> findTaskLogMarker(
+        @Parameter(description = "The DAG ID") @PathVariable String dagId,
+        @Parameter(description = "The DAG run ID") @PathVariable String dagRunId,
+        @Parameter(description = "The task ID") @PathVariable String taskId,
+        @Parameter(description = "The task try number") @RequestParam(required = false, defaultValue = "1") Integer tryNumber,
+        @Parameter(description = "Line to search from") @RequestParam(required = false, defaultValue = "0") long from,
+        @Parameter(description = "Minimum level", schema = @Schema(allowableValues = {"error", "warning"}))
+        @RequestParam(required = false, defaultValue = "error") String level,
+        @Parameter(description = "Search direction", schema = @Schema(allowableValues = {"next", "previous"}))
+        @RequestParam(required = false, defaultValue = "next") String direction
+    ) {
+        return logPageService.findMarker(dagId, dagRunId, taskId, tryNumber, from, level, "previous".equalsIgnoreCase(direction));
+    }
+
+    @Operation(
+        summary = "Export DAG Run Logs",
+        description = "Download the logs of all tries of all tasks of a DAG run as a ZIP archive. " +
+                     "The archive is streamed while the logs are fetched."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Archive download started"),
+        @ApiResponse(responseCode = "404", description = "DAG run not found")
+    })
+    @GetMapping(value = "/{dagId}/dagRuns/{dagRunId}/export", produces = "application/zip")
+    public ResponseEntity<Flux<DataBuffer>> exportDagRunLogs(
+        @Parameter(description = "The DAG ID") @PathVariable String dagId,
+        @Parameter(description = "The DAG run ID") @PathVariable String dagRunId
+    ) {
+        String fileName = (dagId + "_" + dagRunId).replaceAll("[^A-Za-z0-9._-]", "_") + "_logs.zip";
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .body(logExportService.exportDagRunLogs(dagId, dagRunId));
+    }
+}
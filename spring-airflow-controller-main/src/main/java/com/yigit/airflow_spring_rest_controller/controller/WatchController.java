@@ -0,0 +1,84 @@
+package com.yigit.airflow_spring_rest_controller.controller;
+
+import com.yigit.airflow_spring_rest_controller.dto.watch.WatchEvent;
+import com.yigit.airflow_spring_rest_controller.service.watch.StateWatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * Controller pushing DAG run and task instance state changes over Server-Sent Events
+ */
+@RestController
+@RequestMapping("/api/v1/watch")
+@Tag(name = "Watch", description = "Push-based state updates of DAG runs and task instances")
+public class WatchController {
+
+    private final StateWatchService stateWatchService;
+    private final Duration heartbeatInterval;
+
+    @Autowired
+    public WatchController(StateWatchService stateWatchService,
+                           @Value("${gateway.watch.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.stateWatchService = stateWatchService;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    @Operation(
+        summary = "Watch DAG Runs",
+        description = "Stream the state of the most recent runs of a DAG. " +
+                     "Sends a 'snapshot' event with all runs, then 'transition' events with the runs whose state changed."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Watch started"),
+        @ApiResponse(responseCode = "401", description = "Authentication failed")
+    })
+    @GetMapping(value = "/dags/{dagId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<WatchEvent>> watchDag(
+        @Parameter(description = "The ID of the DAG", required = true) @PathVariable String dagId
+    ) {
+        return toServerSentEvents(stateWatchService.watchDag(dagId));
+    }
+
+    @Operation(
+        summary = "Watch Task Instances",
+        description = "Stream the state of the task instances of a DAG run. " +
+                     "Sends a 'snapshot' event with all task instances, then 'transition' events with the task instances whose state or try changed."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Watch started"),
+        @ApiResponse(responseCode = "401", description = "Authentication failed")
+    })
+    @GetMapping(value = "/dags/{dagId}/dagRuns/{dagRunId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<WatchEvent>> watchDagRun(
+        @Parameter(description = "The ID of the DAG", required = true) @PathVariable String dagId,
+        @Parameter(description = "The ID of the DAG run", required = true) @PathVariable String dagRunId
+    ) {
+        return toServerSentEvents(stateWatchService.watchDagRun(dagId, dagRunId));
+    }
+
+    private Flux<ServerSentEvent<WatchEvent>> toServerSentEvents(Flux<WatchEvent> events) {
+        Flux<ServerSentEvent<WatchEvent>> heartbeat = Flux.interval(heartbeatInterval)
+            .map(tick -> ServerSentEvent.<WatchEvent>builder().comment("keep-alive").build());
+        return events
+            .map(event -> ServerSentEvent.<WatchEvent>builder()
+                .id(String.valueOf(event.getSequence()))
+                .event(event.getType())
+                .data(event)
+                .build())
+            .mergeWith(heartbeat);
+    }
+}
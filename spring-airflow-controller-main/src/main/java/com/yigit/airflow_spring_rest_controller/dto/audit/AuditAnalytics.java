@@ -0,0 +1,24 @@
+package com.yigit.airflow_spring_rest_controller.dto.audit;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Audit log counts grouped by time bucket and dimensions
+ */
+@Data
+public class AuditAnalytics {
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    private String interval;
+
+    @JsonProperty("group_by")
+    private List<String> groupBy;
+
+    private List<AuditAnalyticsRow> rows;
+}
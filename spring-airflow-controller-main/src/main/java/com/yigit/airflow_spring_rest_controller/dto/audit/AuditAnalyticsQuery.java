@@ -0,0 +1,28 @@
+package com.yigit.airflow_spring_rest_controller.dto.audit;
+
+import com.yigit.airflow_spring_rest_controller.entity.AuditLogOperation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Filter and grouping of audit log counts
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditAnalyticsQuery {
+    private LocalDateTime from;     // inclusive, hour resolution
+    private LocalDateTime to;       // exclusive, hour resolution
+    private String interval;        // hour, day, week, month or null for a single total per group
+    private List<String> groupBy;   // any of operation, dag_id, user_id
+    private List<AuditLogOperation> operations;
+    private String dagId;
+    private String userId;          // forced to the current user for non-admins
+    private int limit;
+}
@@ -0,0 +1,26 @@
+package com.yigit.airflow_spring_rest_controller.dto.audit;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of audited operations of one time bucket and group, dimensions not grouped by are null
+ */
+@Data
+public class AuditAnalyticsRow {
+    private LocalDateTime bucket;
+
+    private String operation;
+
+    @JsonProperty("dag_id")
+    private String dagId;
+
+    @JsonProperty("user_id")
+    private String userId;
+
+    private String username;
+
+    private long count;
+}
@@ -0,0 +1,23 @@
+package com.yigit.airflow_spring_rest_controller.dto.audit;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.yigit.airflow_spring_rest_controller.entity.AuditLog;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of audit logs, newest first
+ */
+@Data
+public class AuditLogPage {
+    private List<AuditLog> items;
+
+    @JsonProperty("next_cursor")
+    private String nextCursor; // null on the last page
+
+    @JsonProperty("has_more")
+    private boolean hasMore;
+
+    private int limit;
+}
@@ -0,0 +1,28 @@
+package com.yigit.airflow_spring_rest_controller.dto.audit;
+
+import com.yigit.airflow_spring_rest_controller.entity.AuditLogOperation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Filter and keyset pagination criteria for listing audit logs, newest first
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogQuery {
+    private String userId;          // forced to the current user for non-admins
+    private String dagId;
+    private String dagRunId;
+    private List<AuditLogOperation> operations;
+    private LocalDateTime from;     // inclusive
+    private LocalDateTime to;       // exclusive
+    private String cursor;          // next_cursor of the previous page
+    private int limit;
+}
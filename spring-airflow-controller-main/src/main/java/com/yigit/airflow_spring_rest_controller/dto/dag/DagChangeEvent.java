@@ -0,0 +1,34 @@
+package com.yigit.airflow_spring_rest_controller.dto.dag;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+/**
+ * A change of the DAG catalog detected between two snapshots
+ */
+@Data
+public class DagChangeEvent {
+    public static final String ADDED = "added";
+    public static final String REMOVED = "removed";
+    public static final String CHANGED = "changed";
+    // Changes were missed, the DAG list has to be reloaded; carries no DAG
+    public static final String RESET = "reset";
+
+    private long sequence;
+
+    // Position in the feed of the gateway instance that detected the change, resume from it
+    private String cursor;
+
+    private String type;
+
+    @JsonProperty("dag_id")
+    private String dagId;
+
+    @JsonProperty("detected_at")
+    private ZonedDateTime detectedAt;
+
+    private Map<String, DagFieldChange> changes; // keyed by Airflow field name
+}
@@ -0,0 +1,24 @@
+package com.yigit.airflow_spring_rest_controller.dto.dag;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Catalog changes following a cursor
+ */
+@Data
+public class DagChangePage {
+    private List<DagChangeEvent> events;
+
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    @JsonProperty("latest_sequence")
+    private long latestSequence;
+
+    // True when changes after the cursor have been dropped from the feed or the cursor was issued by another
+    // gateway instance or before a restart; the catalog has to be reloaded, then followed from next_cursor
+    private boolean reset;
+}
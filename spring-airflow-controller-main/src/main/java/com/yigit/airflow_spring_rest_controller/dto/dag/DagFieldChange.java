@@ -0,0 +1,20 @@
+package com.yigit.airflow_spring_rest_controller.dto.dag;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Old and new value of a changed DAG attribute
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DagFieldChange {
+    @JsonProperty("old_value")
+    private String oldValue;
+
+    @JsonProperty("new_value")
+    private String newValue;
+}
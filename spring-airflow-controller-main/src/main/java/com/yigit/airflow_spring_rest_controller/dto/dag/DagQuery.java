@@ -0,0 +1,58 @@
+package com.yigit.airflow_spring_rest_controller.dto.dag;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Filter, ordering and pagination criteria for listing DAGs
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DagQuery {
+    private Boolean isActive;
+    private Boolean isPaused;
+    private String dagIdPattern; // matched by Airflow against dag_id
+    private String search;       // matched by the search index, evaluated locally
+    private List<String> tags;
+    private String orderBy;
+    private int offset;
+    private int limit;
+
+    /**
+     * Airflow can only filter for active DAGs (only_active=true) and cannot search other fields than dag_id,
+     * these criteria have to be evaluated on the gateway
+     */
+    public boolean requiresLocalFiltering() {
+        return (search != null && !search.isEmpty()) || Boolean.FALSE.equals(isActive);
+    }
+
+    /**
+     * Canonical key of the Airflow request this query translates to.
+     * Values are URL-encoded and missing criteria omitted, so distinct queries never share a key.
+     */
+    public String toCacheKey() {
+        StringBuilder key = new StringBuilder("dags?limit=").append(limit).append("&offset=").append(offset);
+        appendParam(key, "only_active", isActive);
+        appendParam(key, "paused", isPaused);
+        appendParam(key, "dag_id_pattern", dagIdPattern);
+        if (tags != null) {
+            tags.forEach(tag -> appendParam(key, "tags", tag));
+        }
+        appendParam(key, "order_by", orderBy);
+        return key.toString();
+    }
+
+    private static void appendParam(StringBuilder key, String name, Object value) {
+        if (value != null) {
+            key.append('&').append(name).append('=').append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+        }
+    }
+}
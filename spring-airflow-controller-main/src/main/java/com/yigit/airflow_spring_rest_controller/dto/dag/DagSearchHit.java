@@ -0,0 +1,21 @@
+package com.yigit.airflow_spring_rest_controller.dto.dag;
+
+import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+@Data
+public class DagSearchHit {
+    @JsonProperty("dag_id")
+    private String dagId;
+    
+    @JsonProperty("dag_display_name")
+    private String dagDisplayName;
+    
+    private String description;
+    
+    private int score;
+    
+    @JsonProperty("matched_fields")
+    private List<String> matchedFields;
+}
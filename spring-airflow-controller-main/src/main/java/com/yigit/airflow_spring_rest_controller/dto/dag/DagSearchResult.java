@@ -0,0 +1,15 @@
+package com.yigit.airflow_spring_rest_controller.dto.dag;
+
+import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+@Data
+public class DagSearchResult {
+    private String query;
+    
+    @JsonProperty("total_matches")
+    private Integer totalMatches;
+    
+    private List<DagSearchHit> hits;
+}
@@ -0,0 +1,20 @@
+package com.yigit.airflow_spring_rest_controller.dto.log;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Position of an ERROR or WARNING line of a task log
+ */
+@Data
+public class LogLineMarker {
+    @JsonProperty("line_number")
+    private long lineNumber;
+
+    private long offset; // byte offset of the line in the raw log
+
+    private String level;
+
+    @JsonProperty("total_lines")
+    private long totalLines;
+}
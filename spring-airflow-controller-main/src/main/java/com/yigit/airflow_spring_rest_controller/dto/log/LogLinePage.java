@@ -0,0 +1,23 @@
+package com.yigit.airflow_spring_rest_controller.dto.log;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A range of lines of a task log
+ */
+@Data
+public class LogLinePage {
+    @JsonProperty("try_number")
+    private int tryNumber;
+
+    @JsonProperty("from_line")
+    private long fromLine;
+
+    @JsonProperty("total_lines")
+    private long totalLines;
+
+    private List<LogPageLine> lines;
+}
@@ -0,0 +1,21 @@
+package com.yigit.airflow_spring_rest_controller.dto.log;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single line of a log page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogPageLine {
+    @JsonProperty("line_number")
+    private long lineNumber;
+
+    private long offset; // byte offset of the line in the raw log
+
+    private String text;
+}
@@ -0,0 +1,38 @@
+package com.yigit.airflow_spring_rest_controller.dto.log;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A log line matching a log search, with its position and surrounding lines
+ */
+@Data
+public class LogSearchMatch {
+    @JsonProperty("dag_id")
+    private String dagId;
+
+    @JsonProperty("dag_run_id")
+    private String dagRunId;
+
+    @JsonProperty("task_id")
+    private String taskId;
+
+    @JsonProperty("map_index")
+    private Integer mapIndex;
+
+    @JsonProperty("try_number")
+    private int tryNumber;
+
+    @JsonProperty("line_number")
+    private long lineNumber;
+
+    private long offset; // byte offset of the line in the raw log
+
+    private String line;
+
+    private List<String> before;
+
+    private List<String> after;
+}
@@ -0,0 +1,15 @@
+package com.yigit.airflow_spring_rest_controller.dto.log;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * A chunk of a task log as returned by Airflow's JSON log endpoint
+ */
+@Data
+public class TaskLogChunk {
+    private String content;
+
+    @JsonProperty("continuation_token")
+    private String continuationToken;
+}
@@ -0,0 +1,14 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+/**
+ * Snapshot of the audit log partition maintenance of this instance
+ */
+@Data
+public class AuditPartitionStats {
+    private long defaultPartitionRows;  // rows outside of all monthly partitions after the last run
+    private long movedRows;             // rows moved from the default partition into a monthly one
+    private long archivedPartitions;
+    private long failures;
+}
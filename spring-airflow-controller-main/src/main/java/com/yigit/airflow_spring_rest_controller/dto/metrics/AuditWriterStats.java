@@ -0,0 +1,18 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+/**
+ * Snapshot of the audit log writer
+ */
+@Data
+public class AuditWriterStats {
+    private boolean writeBehind;
+    private int buffered;
+    private int capacity;
+    private long batches;
+    private long batchedRows;
+    private long synchronousWrites;
+    private long overflowWrites;
+    private long failedRows;
+}
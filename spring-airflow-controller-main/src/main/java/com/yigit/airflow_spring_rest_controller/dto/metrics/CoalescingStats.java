@@ -0,0 +1,14 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+/**
+ * Snapshot of the Airflow request coalescer
+ */
+@Data
+public class CoalescingStats {
+    private int inFlight;
+    private long upstreamCalls;
+    private long collapsedCalls;
+    private long cancelledCalls;
+}
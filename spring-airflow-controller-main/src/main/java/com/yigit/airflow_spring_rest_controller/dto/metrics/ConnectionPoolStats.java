@@ -0,0 +1,20 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+/**
+ * Snapshot of the Airflow connection pool
+ */
+@Data
+public class ConnectionPoolStats {
+    private int hosts;
+    private int active;
+    private int idle;
+    private int pending;
+    private int allocated;
+    private int maxConnections;
+    private long acquireCount;
+    private long acquireErrors;
+    private double averageAcquireMillis;
+    private double maxAcquireMillis;
+}
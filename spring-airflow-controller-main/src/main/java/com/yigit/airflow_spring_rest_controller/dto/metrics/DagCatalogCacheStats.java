@@ -0,0 +1,19 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+/**
+ * Snapshot of the DAG catalog cache
+ */
+@Data
+public class DagCatalogCacheStats {
+    private int entries;
+    private long cachedDags;
+    private long hits;
+    private long staleHits;
+    private long misses;
+    private long refreshes;
+    private long refreshFailures;
+    private long evictions;
+    private long invalidations;
+}
@@ -0,0 +1,19 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Snapshot of the background job leases of this instance
+ */
+@Data
+public class JobLockStats {
+    private String instanceId;
+    private List<String> held;     // jobs running on this instance
+    private long acquired;
+    private long skipped;          // held by or recently run on another instance
+    private long renewals;
+    private long lost;
+    private long errors;
+}
@@ -0,0 +1,20 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of the JWKS manager
+ */
+@Data
+public class JwksStats {
+    private int keys;
+    private Instant loadedAt;
+    private String loadedFrom;     // keycloak or file
+    private Instant nextRefreshAt;
+    private long refreshes;
+    private long refreshFailures;
+    private long unknownKeyRefetches;
+    private long unknownKeyRejections;
+}
@@ -0,0 +1,15 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+/**
+ * Snapshot of the verified JWT cache
+ */
+@Data
+public class JwtCacheStats {
+    private int entries;
+    private long hits;
+    private long misses;
+    private long expirations;
+    private long evictions;
+}
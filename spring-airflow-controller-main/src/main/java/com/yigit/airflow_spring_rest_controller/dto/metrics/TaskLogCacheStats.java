@@ -0,0 +1,19 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+/**
+ * Snapshot of the on-disk task log cache
+ */
+@Data
+public class TaskLogCacheStats {
+    private int entries;
+    private long sizeBytes;
+    private long maxSizeBytes;
+    private long hits;
+    private long misses;
+    private long stores;
+    private long storeFailures;
+    private long evictions;
+    private long expirations;
+}
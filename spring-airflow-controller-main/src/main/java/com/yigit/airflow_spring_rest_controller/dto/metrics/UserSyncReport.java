@@ -0,0 +1,26 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of one Keycloak user synchronization run
+ */
+@Data
+public class UserSyncReport {
+    private Instant startedAt;
+    private long durationMs;
+    private boolean success;
+    private String error;
+    private int pages;
+    private int fetched;
+    private int inserted;
+    private int updated;
+    private int unchanged;
+    private int disabled;
+    private int tokenRequests;
+    private Map<String, Long> phaseMs = new LinkedHashMap<>();   // load, fetch, write
+}
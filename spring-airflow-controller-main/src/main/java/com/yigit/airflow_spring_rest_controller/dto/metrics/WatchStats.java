@@ -0,0 +1,15 @@
+package com.yigit.airflow_spring_rest_controller.dto.metrics;
+
+import lombok.Data;
+
+/**
+ * Snapshot of the DAG and DAG run watchers
+ */
+@Data
+public class WatchStats {
+    private int watches;
+    private int subscribers;
+    private long polls;
+    private long pollFailures;
+    private long eventsPublished;
+}
@@ -4,9 +4,22 @@ import lombok.Data;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.ZonedDateTime;
 import java.util.Map;
+import java.util.Set;
 
 @Data
 public class TaskInstance {
+
+    /**
+     * States in which a task try has ended and writes no more log output
+     */
+    public static final Set<String> FINISHED_TRY_STATES = Set.of(
+        "success", "failed", "skipped", "upstream_failed", "removed", "up_for_retry");
+
+    /**
+     * States after which the task instance is not tried again
+     */
+    public static final Set<String> TERMINAL_STATES = Set.of(
+        "success", "failed", "skipped", "upstream_failed", "removed");
     @JsonProperty("task_id")
     private String taskId;
     
@@ -82,4 +95,25 @@ public class TaskInstance {
     private TriggererJob triggererJob;
     
     private String note;
-} 
\ No newline at end of file
+
+    /**
+     * Whether the given try of this task instance has ended, either because it reached a
+     * finished state or because a later try has started
+     */
+    public boolean isTryFinished(int requestedTry) {
+        if (tryNumber != null && tryNumber < requestedTry) {
+            return false;
+        }
+        if (tryNumber != null && tryNumber > requestedTry) {
+            return true;
+        }
+        return state != null && FINISHED_TRY_STATES.contains(state);
+    }
+
+    /**
+     * Whether the given try has not started and never will, because the task instance has ended with an earlier try
+     */
+    public boolean isTryNeverStarted(int requestedTry) {
+        return tryNumber != null && tryNumber < requestedTry && state != null && TERMINAL_STATES.contains(state);
+    }
+}
@@ -8,4 +8,7 @@ import java.util.List;
 public class TaskInstanceCollection {
     @JsonProperty("task_instances")
     private List<TaskInstance> taskInstances;
+    
+    @JsonProperty("total_entries")
+    private Integer totalEntries;
 } 
\ No newline at end of file
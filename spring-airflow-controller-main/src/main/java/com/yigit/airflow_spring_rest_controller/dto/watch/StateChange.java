@@ -0,0 +1,34 @@
+package com.yigit.airflow_spring_rest_controller.dto.watch;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+
+/**
+ * State of a DAG run or task instance, or its transition between two polls
+ */
+@Data
+public class StateChange {
+    private String id; // dag_run_id, or task_id for task instances
+
+    @JsonProperty("map_index")
+    private Integer mapIndex;
+
+    @JsonProperty("previous_state")
+    private String previousState;
+
+    private String state; // null when the item is no longer listed
+
+    @JsonProperty("try_number")
+    private Integer tryNumber;
+
+    @JsonProperty("execution_date")
+    private ZonedDateTime executionDate; // DAG runs only
+
+    @JsonProperty("start_date")
+    private ZonedDateTime startDate;
+
+    @JsonProperty("end_date")
+    private ZonedDateTime endDate;
+}
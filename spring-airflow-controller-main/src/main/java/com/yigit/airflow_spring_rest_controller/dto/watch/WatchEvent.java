@@ -0,0 +1,28 @@
+package com.yigit.airflow_spring_rest_controller.dto.watch;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Event pushed to watchers of a DAG or DAG run.
+ * A "snapshot" carries the current state of all items, a "transition" only the items that changed.
+ */
+@Data
+public class WatchEvent {
+    public static final String SNAPSHOT = "snapshot";
+    public static final String TRANSITION = "transition";
+
+    private String type;
+
+    @JsonProperty("dag_id")
+    private String dagId;
+
+    @JsonProperty("dag_run_id")
+    private String dagRunId;
+
+    private long sequence;
+
+    private List<StateChange> changes;
+}
@@ -40,4 +40,7 @@ public class User {
     private String lastName;
     
     private String email;
+
+    @Column("sync_hash")
+    private String syncHash; // hash of the attributes synchronized from Keycloak
 } 
\ No newline at end of file
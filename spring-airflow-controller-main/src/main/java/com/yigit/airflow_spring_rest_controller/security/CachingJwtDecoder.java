@@ -0,0 +1,25 @@
+package com.yigit.airflow_spring_rest_controller.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decoder serving repeated tokens from the {@link VerifiedJwtCache}, new tokens are verified by the delegate
+ */
+public class CachingJwtDecoder implements ReactiveJwtDecoder {
+
+    private final ReactiveJwtDecoder delegate;
+    private final VerifiedJwtCache cache;
+
+    public CachingJwtDecoder(ReactiveJwtDecoder delegate, VerifiedJwtCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) throws JwtException {
+        return cache.decode(token, delegate::decode);
+    }
+}
@@ -0,0 +1,32 @@
+package com.yigit.airflow_spring_rest_controller.security;
+
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+/**
+ * Access to the {@link GatewayPrincipal} of the current request
+ */
+public final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    /**
+     * @return Mono<GatewayPrincipal> the caller, an error when the request is not authenticated with a JWT
+     */
+    public static Mono<GatewayPrincipal> get() {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(SecurityContext::getAuthentication)
+            .map(auth -> {
+                if (auth instanceof GatewayAuthenticationToken token) {
+                    return token.getGatewayPrincipal();
+                }
+                if (auth instanceof JwtAuthenticationToken token) {
+                    return GatewayPrincipal.from(token.getToken());
+                }
+                throw new IllegalStateException("User not authenticated with JWT token");
+            });
+    }
+}
@@ -0,0 +1,23 @@
+package com.yigit.airflow_spring_rest_controller.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * JWT authentication carrying the precomputed {@link GatewayPrincipal}. The Spring Security principal
+ * stays the {@link Jwt}, so @AuthenticationPrincipal Jwt keeps working.
+ */
+public class GatewayAuthenticationToken extends JwtAuthenticationToken {
+    private static final long serialVersionUID = 1L;
+
+    private final GatewayPrincipal gatewayPrincipal;
+
+    public GatewayAuthenticationToken(Jwt jwt, GatewayPrincipal gatewayPrincipal) {
+        super(jwt, gatewayPrincipal.authorities(), gatewayPrincipal.userId());
+        this.gatewayPrincipal = gatewayPrincipal;
+    }
+
+    public GatewayPrincipal getGatewayPrincipal() {
+        return gatewayPrincipal;
+    }
+}
@@ -0,0 +1,55 @@
+package com.yigit.airflow_spring_rest_controller.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Identity and roles of the caller, extracted once per token
+ *
+ * @param userId      Keycloak user ID (sub claim)
+ * @param username    preferred_username claim, "unknown" when missing
+ * @param roles       realm roles
+ * @param authorities roles as ROLE_ prefixed authorities
+ */
+public record GatewayPrincipal(String userId, String username, Set<String> roles, boolean admin,
+                               List<GrantedAuthority> authorities) implements Serializable {
+
+    public static final String ADMIN_ROLE = "airflow-admin";
+
+    private static final String REALM_ACCESS_CLAIM = "realm_access";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    public static GatewayPrincipal from(Jwt jwt) {
+        Set<String> roles = Set.copyOf(extractRoles(jwt));
+        List<GrantedAuthority> authorities = roles.stream()
+            .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(ROLE_PREFIX + role))
+            .toList();
+        String username = jwt.getClaimAsString("preferred_username");
+        return new GatewayPrincipal(
+            jwt.getSubject(),
+            username != null ? username : "unknown",
+            roles,
+            roles.contains(ADMIN_ROLE),
+            authorities);
+    }
+
+    /**
+     * Roles from realm_access.roles, or else from a top level roles claim
+     */
+    private static Collection<String> extractRoles(Jwt jwt) {
+        Object realmAccess = jwt.getClaims().get(REALM_ACCESS_CLAIM);
+        if (realmAccess instanceof Map<?, ?> claims && claims.get(ROLES_CLAIM) instanceof Collection<?> roles) {
+            return roles.stream().filter(String.class::isInstance).map(String.class::cast).toList();
+        }
+        List<String> directRoles = jwt.getClaimAsStringList(ROLES_CLAIM);
+        return directRoles != null ? directRoles : List.of();
+    }
+}
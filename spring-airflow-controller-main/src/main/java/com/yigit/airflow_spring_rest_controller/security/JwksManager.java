@@ -0,0 +1,235 @@
+package com.yigit.airflow_spring_rest_controller.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.JwksStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Signing keys of Keycloak for JWT verification, served from memory.
+ *
+ * The last known key set is persisted to disk and loaded at startup, so the gateway starts and
+ * verifies tokens without reaching Keycloak. Keys are refreshed in the background on a fixed interval,
+ * or earlier when Keycloak sends a shorter max-age. A token signed with an unknown key id triggers
+ * one refetch shared by all concurrent requests, at most once per min-refetch-interval, which picks up
+ * rotated keys without letting forged key ids hammer Keycloak.
+ */
+@Component
+public class JwksManager {
+    private static final Logger log = LoggerFactory.getLogger(JwksManager.class);
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final WebClient webClient;
+    private final String jwkSetUri;
+    private final Path cacheFile;
+    private final Duration refreshInterval;
+    private final Duration minRefetchInterval;
+    private final Duration fetchTimeout;
+
+    private final AtomicReference<KeySet> keySet = new AtomicReference<>();
+    private final AtomicReference<Mono<KeySet>> inFlight = new AtomicReference<>();
+    private volatile Instant nextRefreshAt = Instant.EPOCH;
+    private volatile Instant lastFetchAt = Instant.EPOCH;
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder unknownKeyRefetches = new LongAdder();
+    private final LongAdder unknownKeyRejections = new LongAdder();
+
+    public JwksManager(
+            WebClient.Builder webClientBuilder,
+            @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+            @Value("${gateway.security.jwks.cache-file:${user.home}/airflow-gateway/jwks.json}") Path cacheFile,
+            @Value("${gateway.security.jwks.refresh-interval:15m}") Duration refreshInterval,
+            @Value("${gateway.security.jwks.min-refetch-interval:30s}") Duration minRefetchInterval,
+            @Value("${gateway.security.jwks.fetch-timeout:5s}") Duration fetchTimeout) {
+        this.jwkSetUri = jwkSetUri;
+        this.cacheFile = cacheFile;
+        this.refreshInterval = refreshInterval;
+        this.minRefetchInterval = minRefetchInterval;
+        this.fetchTimeout = fetchTimeout;
+        this.webClient = webClientBuilder.build();
+    }
+
+    /**
+     * Loads the persisted key set, the first refresh follows in the background
+     */
+    @PostConstruct
+    public void loadCachedKeys() {
+        if (!Files.isRegularFile(cacheFile)) {
+            log.info("No persisted JWKS at {}, keys are fetched from {}", cacheFile, jwkSetUri);
+            return;
+        }
+        try {
+            JWKSet set = JWKSet.parse(Files.readString(cacheFile, StandardCharsets.UTF_8));
+            keySet.set(new KeySet(set, Instant.ofEpochMilli(Files.getLastModifiedTime(cacheFile).toMillis()), "file"));
+            log.info("Loaded {} signing keys from {}", set.getKeys().size(), cacheFile);
+        } catch (IOException | ParseException e) {
+            log.warn("Ignoring unreadable JWKS file {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Source of verification keys for NimbusReactiveJwtDecoder: the keys matching the header of the token
+     */
+    public Flux<JWK> select(SignedJWT jwt) {
+        JWKMatcher matcher = JWKMatcher.forJWSHeader(jwt.getHeader());
+        if (matcher == null) {
+            return Flux.empty();
+        }
+        JWKSelector selector = new JWKSelector(matcher);
+        KeySet current = keySet.get();
+        if (current != null) {
+            List<JWK> keys = selector.select(current.set());
+            if (!keys.isEmpty()) {
+                return Flux.fromIterable(keys);
+            }
+        }
+
+        // Unknown key id, Keycloak may have rotated its keys. A fetch in progress is joined.
+        if (inFlight.get() == null && Instant.now().isBefore(lastFetchAt.plus(minRefetchInterval))) {
+            unknownKeyRejections.increment();
+            return Flux.empty();
+        }
+        unknownKeyRefetches.increment();
+        return fetch().flatMapIterable(fetched -> selector.select(fetched.set()));
+    }
+
+    /**
+     * Refreshes the keys once they are due, failures are retried after min-refetch-interval
+     */
+    @Scheduled(fixedDelayString = "${gateway.security.jwks.check-interval:10000}")
+    public void refreshIfDue() {
+        if (Instant.now().isBefore(nextRefreshAt)) {
+            return;
+        }
+        fetch().subscribe(
+            fetched -> log.debug("Refreshed JWKS, {} keys", fetched.set().getKeys().size()),
+            e -> log.warn("JWKS refresh from {} failed, keeping {} known keys: {}", jwkSetUri,
+                keySet.get() != null ? keySet.get().set().getKeys().size() : 0, e.getMessage()));
+    }
+
+    public JwksStats stats() {
+        JwksStats stats = new JwksStats();
+        KeySet current = keySet.get();
+        if (current != null) {
+            stats.setKeys(current.set().getKeys().size());
+            stats.setLoadedAt(current.loadedAt());
+            stats.setLoadedFrom(current.source());
+        }
+        stats.setNextRefreshAt(nextRefreshAt);
+        stats.setRefreshes(refreshes.sum());
+        stats.setRefreshFailures(refreshFailures.sum());
+        stats.setUnknownKeyRefetches(unknownKeyRefetches.sum());
+        stats.setUnknownKeyRejections(unknownKeyRejections.sum());
+        return stats;
+    }
+
+    /**
+     * Fetches the key set from Keycloak, concurrent callers share one request
+     */
+    private Mono<KeySet> fetch() {
+        while (true) {
+            Mono<KeySet> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+            AtomicReference<Mono<KeySet>> self = new AtomicReference<>();
+            Mono<KeySet> request = Mono.defer(() -> {
+                    lastFetchAt = Instant.now();
+                    return webClient.get().uri(jwkSetUri).retrieve().toEntity(String.class);
+                })
+                .timeout(fetchTimeout)
+                .map(this::update)
+                .doOnError(e -> {
+                    refreshFailures.increment();
+                    nextRefreshAt = Instant.now().plus(minRefetchInterval);
+                })
+                .doFinally(signal -> inFlight.compareAndSet(self.get(), null))
+                .cache();
+            self.set(request);
+            if (inFlight.compareAndSet(null, request)) {
+                return request;
+            }
+        }
+    }
+
+    private KeySet update(ResponseEntity<String> response) {
+        JWKSet set;
+        try {
+            set = JWKSet.parse(response.getBody() != null ? response.getBody() : "").toPublicJWKSet();
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JWKS response: " + e.getMessage(), e);
+        }
+        KeySet fetched = new KeySet(set, Instant.now(), "keycloak");
+        KeySet previous = keySet.getAndSet(fetched);
+        refreshes.increment();
+        nextRefreshAt = Instant.now().plus(nextInterval(response.getHeaders()));
+
+        if (previous == null || !previous.set().toString().equals(set.toString())) {
+            log.info("JWKS updated, {} keys", set.getKeys().size());
+            Schedulers.boundedElastic().schedule(() -> persist(set));
+        }
+        return fetched;
+    }
+
+    /**
+     * The refresh interval, shortened to 80% of the max-age announced by Keycloak
+     */
+    private Duration nextInterval(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            Matcher matcher = MAX_AGE.matcher(cacheControl);
+            if (matcher.find()) {
+                Duration maxAge = Duration.ofSeconds(Long.parseLong(matcher.group(1)) * 8 / 10);
+                if (maxAge.compareTo(minRefetchInterval) > 0 && maxAge.compareTo(refreshInterval) < 0) {
+                    return maxAge;
+                }
+            }
+        }
+        return refreshInterval;
+    }
+
+    private void persist(JWKSet set) {
+        try {
+            Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+            Path temporary = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            Files.writeString(temporary, set.toString(), StandardCharsets.UTF_8);
+            Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to persist JWKS to {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private record KeySet(JWKSet set, Instant loadedAt, String source) {
+    }
+}
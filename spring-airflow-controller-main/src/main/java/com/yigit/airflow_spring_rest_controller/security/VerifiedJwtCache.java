@@ -0,0 +1,141 @@
+package com.yigit.airflow_spring_rest_controller.security;
+
+import com.yigit.airflow_spring_rest_controller.dto.metrics.JwtCacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache of verified JWTs and their {@link GatewayPrincipal}, keyed by the SHA-256 of the token.
+ *
+ * A dashboard sends the same bearer token with every call, so the signature check and the claim
+ * parsing are done once per token instead of once per request. Entries are valid until the exp
+ * claim of the token, tokens without exp are not cached. Concurrent first uses of a token share
+ * one verification. Least recently used entries are evicted first.
+ */
+@Component
+public class VerifiedJwtCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+
+    // Access-ordered map, guarded by its own monitor
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Mono<Jwt>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedJwtCache(
+            @Value("${gateway.security.jwt-cache.enabled:true}") boolean enabled,
+            @Value("${gateway.security.jwt-cache.max-entries:10000}") int maxEntries) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached verification of the token, verifying it with the given decoder when needed
+     */
+    public Mono<Jwt> decode(String token, Function<String, Mono<Jwt>> decoder) {
+        if (!enabled) {
+            return decoder.apply(token);
+        }
+        String key = hash(token);
+        Entry entry = lookup(key);
+        if (entry != null) {
+            hits.increment();
+            return Mono.just(entry.jwt());
+        }
+        misses.increment();
+        return inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<Jwt>> self = new AtomicReference<>();
+            Mono<Jwt> verification = decoder.apply(token)
+                .doOnNext(jwt -> store(k, jwt))
+                .doFinally(signal -> inFlight.remove(k, self.get()))
+                .cache();
+            self.set(verification);
+            return verification;
+        });
+    }
+
+    /**
+     * Returns the principal of a token, computed once per cached token
+     */
+    public GatewayPrincipal principal(Jwt jwt) {
+        if (enabled) {
+            Entry entry = lookup(hash(jwt.getTokenValue()));
+            if (entry != null) {
+                return entry.principal();
+            }
+        }
+        return GatewayPrincipal.from(jwt);
+    }
+
+    public JwtCacheStats stats() {
+        JwtCacheStats stats = new JwtCacheStats();
+        synchronized (entries) {
+            stats.setEntries(entries.size());
+        }
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setExpirations(expirations.sum());
+        stats.setEvictions(evictions.sum());
+        return stats;
+    }
+
+    private Entry lookup(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && !Instant.now().isBefore(entry.expiresAt())) {
+                entries.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void store(String key, Jwt jwt) {
+        if (jwt.getExpiresAt() == null) {
+            return;
+        }
+        Entry entry = new Entry(jwt, GatewayPrincipal.from(jwt), jwt.getExpiresAt());
+        synchronized (entries) {
+            entries.put(key, entry);
+            while (entries.size() > maxEntries) {
+                Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Entry(Jwt jwt, GatewayPrincipal principal, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.yigit.airflow_spring_rest_controller.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Loads every page of a paginated Airflow collection.
+ *
+ * The first page is fetched to learn total_entries, the remaining pages are then fetched
+ * concurrently with bounded parallelism. Items are emitted in page order.
+ */
+@Component
+public class AirflowPageLoader {
+
+    private final int pageSize;
+    private final int concurrency;
+
+    public AirflowPageLoader(
+            @Value("${airflow.client.pagination.page-size:100}") int pageSize,
+            @Value("${airflow.client.pagination.concurrency:4}") int concurrency) {
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Streams all items of a paginated collection
+     *
+     * @param fetchPage    fetches the page at (offset, limit)
+     * @param items        extracts the items of a page
+     * @param totalEntries extracts total_entries of a page, may return null
+     * @return Flux<T> all items in Airflow's order
+     */
+    public <P, T> Flux<T> loadAll(BiFunction<Integer, Integer, Mono<P>> fetchPage,
+                                  Function<P, List<T>> items,
+                                  Function<P, Integer> totalEntries) {
+        return fetchPage.apply(0, pageSize).flatMapMany(first -> {
+            List<T> firstItems = itemsOf(first, items);
+            Integer total = totalEntries.apply(first);
+
+            if (firstItems.isEmpty()) {
+                return Flux.empty();
+            }
+            if (total == null) {
+                // Without a total the pages have to be read one after another until a short page
+                return Flux.fromIterable(firstItems)
+                    .concatWith(loadSequentially(fetchPage, items, firstItems.size()));
+            }
+
+            // Airflow silently caps the limit at its maximum_page_limit
+            int effectivePageSize = Math.min(pageSize, firstItems.size());
+            int remainingPages = (int) Math.ceil((total - firstItems.size()) / (double) effectivePageSize);
+
+            Flux<T> remaining = Flux.range(1, Math.max(remainingPages, 0))
+                .flatMapSequential(
+                    page -> fetchPage.apply(page * effectivePageSize, effectivePageSize)
+                        .flatMapIterable(response -> itemsOf(response, items)),
+                    concurrency);
+            return Flux.fromIterable(firstItems).concatWith(remaining);
+        });
+    }
+
+    private <P, T> Flux<T> loadSequentially(BiFunction<Integer, Integer, Mono<P>> fetchPage,
+                                            Function<P, List<T>> items,
+                                            int effectivePageSize) {
+        return Flux.range(1, Integer.MAX_VALUE)
+            .concatMap(page -> fetchPage.apply(page * effectivePageSize, effectivePageSize)
+                .map(response -> itemsOf(response, items)), 0)
+            .takeUntil(pageItems -> pageItems.size() < effectivePageSize)
+            .flatMapIterable(pageItems -> pageItems);
+    }
+
+    private static <P, T> List<T> itemsOf(P page, Function<P, List<T>> items) {
+        List<T> list = items.apply(page);
+        return list != null ? list : Collections.emptyList();
+    }
+}
@@ -0,0 +1,175 @@
+package com.yigit.airflow_spring_rest_controller.service;
+
+import com.yigit.airflow_spring_rest_controller.dto.metrics.CoalescingStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical idempotent Airflow GET requests.
+ *
+ * While a call for a key is in flight, further callers of the same key subscribe to it
+ * instead of sending their own request and receive the same decoded result or error.
+ * The upstream call is cancelled only when all of its subscribers have cancelled.
+ * Once it terminates the key is released, results are not cached beyond the callers that joined the call.
+ */
+@Component
+public class AirflowRequestCoalescer {
+
+    private final boolean enabled;
+    private final Map<String, Call<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder upstreamCalls = new LongAdder();
+    private final LongAdder collapsedCalls = new LongAdder();
+    private final LongAdder cancelledCalls = new LongAdder();
+
+    public AirflowRequestCoalescer(@Value("${airflow.client.coalescing.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Builds the coalescing key of a GET request from its path template and query parameters
+     *
+     * @param pathTemplate the path template, e.g. /dags/{dagId}
+     * @param queryParams  query parameters, may be null
+     * @param uriVariables values of the path template variables
+     * @return String the key
+     */
+    public static String key(String pathTemplate, Map<String, ?> queryParams, Object... uriVariables) {
+        String path = UriComponentsBuilder.fromPath(pathTemplate).buildAndExpand(uriVariables).toUriString();
+        return queryParams == null || queryParams.isEmpty() ? path : path + "?" + new TreeMap<>(queryParams);
+    }
+
+    /**
+     * Runs the call, or joins an identical call that is already in flight
+     *
+     * @param key  identifies the request, see {@link #key}
+     * @param call the Airflow request
+     * @return Mono<T> the shared result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String key, Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        return Mono.defer(() -> {
+            AtomicBoolean created = new AtomicBoolean();
+            Call<T> shared = (Call<T>) inFlight.computeIfAbsent(key, k -> {
+                created.set(true);
+                return new Call<>(k, call.get());
+            });
+
+            if (created.get()) {
+                upstreamCalls.increment();
+            } else {
+                collapsedCalls.increment();
+            }
+            return shared.join();
+        });
+    }
+
+    public CoalescingStats stats() {
+        CoalescingStats stats = new CoalescingStats();
+        stats.setInFlight(inFlight.size());
+        stats.setUpstreamCalls(upstreamCalls.sum());
+        stats.setCollapsedCalls(collapsedCalls.sum());
+        stats.setCancelledCalls(cancelledCalls.sum());
+        return stats;
+    }
+
+    /**
+     * One in-flight call and its subscribers.
+     *
+     * The result is kept in a sink, so callers that join after it was emitted still read it instead of
+     * missing it or starting another request. The upstream request is cancelled once its last
+     * subscriber left before it terminated; a caller joining afterwards starts it again.
+     */
+    private final class Call<T> {
+        private final String key;
+        private final Mono<T> source;
+        private final Sinks.One<T> result = Sinks.one();
+
+        // Guarded by this
+        private int subscribers;
+        private boolean running;
+        private boolean terminated;
+        private Disposable.Swap upstream;
+
+        Call(String key, Mono<T> source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        Mono<T> join() {
+            return result.asMono()
+                .doOnSubscribe(subscription -> subscribed())
+                .doOnCancel(this::unsubscribed);
+        }
+
+        private void subscribed() {
+            Disposable.Swap run;
+            boolean restart;
+            synchronized (this) {
+                subscribers++;
+                if (running || terminated) {
+                    return;
+                }
+                restart = upstream != null;
+                running = true;
+                run = Disposables.swap();
+                upstream = run;
+            }
+            if (restart) {
+                upstreamCalls.increment();
+            }
+            run.update(source.subscribe(this::onValue, this::onError, this::onComplete));
+        }
+
+        private void unsubscribed() {
+            Disposable.Swap run;
+            synchronized (this) {
+                if (--subscribers > 0 || terminated || !running) {
+                    return;
+                }
+                running = false;
+                run = upstream;
+            }
+            cancelledCalls.increment();
+            inFlight.remove(key, this);
+            run.dispose();
+        }
+
+        private void onValue(T value) {
+            terminate();
+            result.tryEmitValue(value);
+        }
+
+        private void onError(Throwable error) {
+            terminate();
+            result.tryEmitError(error);
+            inFlight.remove(key, this);
+        }
+
+        private void onComplete() {
+            terminate();
+            // No effect after a value, callers joining until here received it
+            result.tryEmitEmpty();
+            inFlight.remove(key, this);
+        }
+
+        private synchronized void terminate() {
+            terminated = true;
+        }
+    }
+}
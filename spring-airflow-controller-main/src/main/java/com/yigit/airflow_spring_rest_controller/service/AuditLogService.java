@@ -1,20 +1,29 @@
 package com.yigit.airflow_spring_rest_controller.service;
 
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditAnalytics;
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditAnalyticsQuery;
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditLogPage;
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditLogQuery;
 import com.yigit.airflow_spring_rest_controller.entity.AuditLog;
 import com.yigit.airflow_spring_rest_controller.entity.AuditLogOperation;
 import com.yigit.airflow_spring_rest_controller.repository.AuditLogRepository;
 import com.yigit.airflow_spring_rest_controller.repository.UserRepository;
+import com.yigit.airflow_spring_rest_controller.security.CurrentUser;
+import com.yigit.airflow_spring_rest_controller.service.audit.AuditLogCriteria;
+import com.yigit.airflow_spring_rest_controller.service.audit.AuditLogCursor;
+import com.yigit.airflow_spring_rest_controller.service.audit.AuditLogWriter;
+import com.yigit.airflow_spring_rest_controller.service.audit.AuditRollupService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.ReactiveSecurityContextHolder;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Service for managing audit logs
@@ -25,11 +34,28 @@ public class AuditLogService {
     
     private final AuditLogRepository auditLogRepository;
     private final UserRepository userRepository;
+    private final AuditLogWriter auditLogWriter;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final AuditRollupService auditRollupService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int exportBatchSize;
     
     @Autowired
-    public AuditLogService(AuditLogRepository auditLogRepository, UserRepository userRepository) {
+    public AuditLogService(AuditLogRepository auditLogRepository, UserRepository userRepository,
+                           AuditLogWriter auditLogWriter, R2dbcEntityTemplate entityTemplate,
+                           AuditRollupService auditRollupService,
+                           @Value("${gateway.audit.page.default-size:50}") int defaultPageSize,
+                           @Value("${gateway.audit.page.max-size:1000}") int maxPageSize,
+                           @Value("${gateway.audit.export.batch-size:1000}") int exportBatchSize) {
         this.auditLogRepository = auditLogRepository;
         this.userRepository = userRepository;
+        this.auditLogWriter = auditLogWriter;
+        this.entityTemplate = entityTemplate;
+        this.auditRollupService = auditRollupService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.exportBatchSize = exportBatchSize;
     }
     
     /**
@@ -78,12 +104,12 @@ public class AuditLogService {
         }
         
         log.debug("Starting to log operation: {} for DAG: {}, DAG run: {}", operation, dagId, dagRunId);
-        return getCurrentUserFromToken()
-            .doOnSuccess(jwt -> log.debug("Successfully retrieved current user JWT"))
-            .doOnError(e -> log.error("Failed to retrieve current user JWT: {}", e.getMessage()))
-            .flatMap(jwt -> {
-                String userId = jwt.getClaimAsString("sub");
-                String username = jwt.getClaimAsString("preferred_username");
+        return CurrentUser.get()
+            .doOnSuccess(user -> log.debug("Successfully retrieved current user"))
+            .doOnError(e -> log.error("Failed to retrieve current user: {}", e.getMessage()))
+            .flatMap(user -> {
+                String userId = user.userId();
+                String username = user.username();
                 
                 if (userId == null || userId.trim().isEmpty()) {
                     log.error("Cannot log operation: User ID could not be extracted from JWT");
@@ -92,7 +118,7 @@ public class AuditLogService {
                 
                 log.debug("Extracted user info from JWT: userId={}, username={}", userId, username);
                 
-                return createAuditLog(userId, username != null ? username : "unknown", dagId, dagRunId, operation, details);
+                return createAuditLog(userId, username, dagId, dagRunId, operation, details);
             })
             .doOnSuccess(auditLog -> log.info("Successfully logged operation: {} for DAG: {}, DAG run: {}, log ID: {}", 
                 operation, dagId, dagRunId, auditLog.getId()))
@@ -108,17 +134,17 @@ public class AuditLogService {
      * @return Flux<AuditLog> filtered audit logs
      */
     public Flux<AuditLog> getAuditLogs() {
-        return getCurrentUserFromToken()
-            .flatMapMany(jwt -> {
-                String userId = jwt.getClaimAsString("sub");
-                boolean isAdmin = hasAdminRole(jwt);
+        return CurrentUser.get()
+            .flatMapMany(user -> {
+                String userId = user.userId();
+                boolean isAdmin = user.admin();
                 
                 if (isAdmin) {
                     log.info("Admin user requesting all audit logs");
-                    return auditLogRepository.findAll();
+                    return select(AuditLogCriteria.create());
                 } else {
                     log.info("Regular user requesting their own audit logs");
-                    return auditLogRepository.findByUserId(userId);
+                    return select(AuditLogCriteria.create().user(userId));
                 }
             });
     }
@@ -130,58 +156,100 @@ public class AuditLogService {
      * @return Flux<AuditLog> filtered audit logs
      */
     public Flux<AuditLog> getAuditLogsForDag(String dagId) {
-        return getCurrentUserFromToken()
-            .flatMapMany(jwt -> {
-                String userId = jwt.getClaimAsString("sub");
-                boolean isAdmin = hasAdminRole(jwt);
+        return CurrentUser.get()
+            .flatMapMany(user -> {
+                String userId = user.userId();
+                boolean isAdmin = user.admin();
                 
-                if (isAdmin) {
-                    return auditLogRepository.findByDagId(dagId);
-                } else {
-                    return auditLogRepository.findByUserIdAndDagId(userId, dagId);
-                }
+                AuditLogCriteria criteria = AuditLogCriteria.create().dag(dagId);
+                return select(isAdmin ? criteria : criteria.user(userId));
             });
     }
     
     /**
-     * Check if a user has admin role
+     * Get one page of audit logs, newest first, with role-based access control.
+     * Pages are addressed by the (operation_time, id) of the last row of the previous page,
+     * so the cost of a page does not depend on how deep it is.
      * 
-     * @param jwt the JWT token
-     * @return boolean true if user has admin role
+     * @param query filters, cursor and page size
+     * @return Mono<AuditLogPage> the page
      */
-    private boolean hasAdminRole(org.springframework.security.oauth2.jwt.Jwt jwt) {
-        try {
-            @SuppressWarnings("unchecked")
-            java.util.Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
-            if (realmAccess != null) {
-                @SuppressWarnings("unchecked")
-                java.util.List<String> roles = (java.util.List<String>) realmAccess.get("roles");
-                return roles != null && roles.contains("airflow-admin");
-            }
-        } catch (Exception e) {
-            log.warn("Error checking admin role: {}", e.getMessage());
-        }
-        return false;
+    public Mono<AuditLogPage> getAuditLogPage(AuditLogQuery query) {
+        int limit = query.getLimit() > 0 ? Math.min(query.getLimit(), maxPageSize) : defaultPageSize;
+        AuditLogCursor after = query.getCursor() != null ? AuditLogCursor.decode(query.getCursor()) : null;
+        
+        return scopeToCurrentUser(query)
+            .flatMap(scoped -> fetchPage(scoped, after, limit))
+            .map(page -> {
+                AuditLogPage result = new AuditLogPage();
+                result.setItems(page.items());
+                result.setHasMore(page.next() != null);
+                result.setNextCursor(page.next() != null ? page.next().encode() : null);
+                result.setLimit(limit);
+                return result;
+            });
+    }
+    
+    /**
+     * Stream all audit logs matching the query, newest first, with role-based access control.
+     * Rows are read in keyset pages on demand, so memory use does not depend on the size of the range.
+     * 
+     * @param query filters and optional start cursor, the limit is ignored
+     * @return Flux<AuditLog> matching audit logs
+     */
+    public Flux<AuditLog> exportAuditLogs(AuditLogQuery query) {
+        AuditLogCursor start = query.getCursor() != null ? AuditLogCursor.decode(query.getCursor()) : null;
+        
+        return scopeToCurrentUser(query)
+            .flatMapMany(scoped -> fetchPage(scoped, start, exportBatchSize)
+                .expand(page -> page.next() != null ? fetchPage(scoped, page.next(), exportBatchSize) : Mono.empty())
+                .concatMapIterable(KeysetPage::items));
     }
     
     /**
-     * Get the current user from the security context
+     * Get audit log counts grouped by time bucket and dimensions, with role-based access control.
+     * Regular users only get counts of their own operations.
      * 
-     * @return Mono<Jwt> the JWT token
+     * @param query time range, interval, grouping and filters
+     * @return Mono<AuditAnalytics> the counts
      */
-    private Mono<org.springframework.security.oauth2.jwt.Jwt> getCurrentUserFromToken() {
-        return ReactiveSecurityContextHolder.getContext()
-            .map(SecurityContext::getAuthentication)
-            .map(auth -> {
-                if (auth instanceof JwtAuthenticationToken) {
-                    return ((JwtAuthenticationToken) auth).getToken();
+    public Mono<AuditAnalytics> getAnalytics(AuditAnalyticsQuery query) {
+        return CurrentUser.get()
+            .flatMap(user -> {
+                if (!user.admin()) {
+                    query.setUserId(user.userId());
                 }
-                throw new IllegalStateException("User not authenticated with JWT token");
+                return auditRollupService.query(query);
             });
     }
     
     /**
-     * Create and save an audit log entry
+     * Restricts the query to the current user unless the user is an admin
+     */
+    private Mono<AuditLogQuery> scopeToCurrentUser(AuditLogQuery query) {
+        return CurrentUser.get()
+            .map(user -> {
+                if (!user.admin()) {
+                    query.setUserId(user.userId());
+                }
+                return query;
+            });
+    }
+    
+    private Mono<KeysetPage> fetchPage(AuditLogQuery query, AuditLogCursor after, int limit) {
+        // One extra row tells whether there is a next page
+        return entityTemplate.select(AuditLogCriteria.of(query).after(after).toQuery(limit + 1), AuditLog.class)
+            .collectList()
+            .map(rows -> rows.size() > limit
+                ? new KeysetPage(rows.subList(0, limit), AuditLogCursor.after(rows.get(limit - 1)))
+                : new KeysetPage(rows, null));
+    }
+    
+    private record KeysetPage(List<AuditLog> items, AuditLogCursor next) {
+    }
+    
+    /**
+     * Create and save an audit log entry, or queue it when write-behind is enabled for the operation
      */
     private Mono<AuditLog> createAuditLog(String userId, String username, String dagId, String dagRunId, 
                                          AuditLogOperation operation, String details) {
@@ -198,7 +266,7 @@ public class AuditLogService {
             .details(details)
             .build();
             
-        return auditLogRepository.save(auditLog)
+        return auditLogWriter.write(auditLog)
             .doOnSuccess(saved -> log.info("Created audit log: user={}, dag={}, operation={}, id={}", 
                 username, dagId, operation, saved.getId()))
             .doOnError(e -> log.error("Failed to save audit log: user={}, dag={}, operation={}, error={}", 
@@ -213,18 +281,18 @@ public class AuditLogService {
      */
     public Flux<AuditLog> getAuditLogsByOperation(AuditLogOperation operation) {
         log.debug("Getting audit logs for operation: {}", operation);
-        return getCurrentUserFromToken()
-            .flatMapMany(jwt -> {
-                String userId = jwt.getClaimAsString("sub");
-                boolean isAdmin = hasAdminRole(jwt);
+        return CurrentUser.get()
+            .flatMapMany(user -> {
+                String userId = user.userId();
+                boolean isAdmin = user.admin();
                 
+                AuditLogCriteria criteria = AuditLogCriteria.create().operation(operation);
                 if (isAdmin) {
                     log.info("Admin user requesting all audit logs for operation: {}", operation);
-                    return auditLogRepository.findByOperation(operation);
+                    return select(criteria);
                 } else {
                     log.info("Regular user requesting their own audit logs for operation: {}", operation);
-                    return Flux.from(auditLogRepository.findByOperation(operation))
-                        .filter(log -> log.getUserId().equals(userId));
+                    return select(criteria.user(userId));
                 }
             });
     }
@@ -238,22 +306,26 @@ public class AuditLogService {
      */
     public Flux<AuditLog> getAuditLogsByOperationAndDagId(AuditLogOperation operation, String dagId) {
         log.debug("Getting audit logs for operation: {} and DAG: {}", operation, dagId);
-        return getCurrentUserFromToken()
-            .flatMapMany(jwt -> {
-                String userId = jwt.getClaimAsString("sub");
-                boolean isAdmin = hasAdminRole(jwt);
-                
-                // Get logs for the specified operation and DAG ID
-                Flux<AuditLog> operationLogs = Flux.from(auditLogRepository.findByOperation(operation))
-                    .filter(log -> log.getDagId().equals(dagId));
+        return CurrentUser.get()
+            .flatMapMany(user -> {
+                String userId = user.userId();
+                boolean isAdmin = user.admin();
                 
+                AuditLogCriteria criteria = AuditLogCriteria.create().operation(operation).dag(dagId);
                 if (isAdmin) {
                     log.info("Admin user requesting all audit logs for operation: {} and DAG: {}", operation, dagId);
-                    return operationLogs;
+                    return select(criteria);
                 } else {
                     log.info("Regular user requesting their own audit logs for operation: {} and DAG: {}", operation, dagId);
-                    return operationLogs.filter(log -> log.getUserId().equals(userId));
+                    return select(criteria.user(userId));
                 }
             });
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Run the criteria as one SQL statement, newest first
+     */
+    private Flux<AuditLog> select(AuditLogCriteria criteria) {
+        return entityTemplate.select(criteria.toQuery(), AuditLog.class);
+    }
+}
@@ -15,9 +15,11 @@ import org.springframework.http.MediaType;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -25,36 +27,44 @@ public class DagRunService {
 
     private final WebClient airflowWebClient;
     private final AuditLogService auditLogService;
+    private final AirflowPageLoader pageLoader;
+    private final AirflowRequestCoalescer requestCoalescer;
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DagRunService.class);
 
     @Autowired
-    public DagRunService(WebClient airflowWebClient, AuditLogService auditLogService) {
+    public DagRunService(WebClient airflowWebClient, AuditLogService auditLogService,
+                         AirflowPageLoader pageLoader, AirflowRequestCoalescer requestCoalescer) {
         this.airflowWebClient = airflowWebClient;
         this.auditLogService = auditLogService;
+        this.pageLoader = pageLoader;
+        this.requestCoalescer = requestCoalescer;
     }
 
     public Mono<DagRunCollection> getDagRuns(String dagId, Map<String, String> queryParams) {
-        return airflowWebClient.get()
-            .uri(uriBuilder -> {
-                uriBuilder = uriBuilder.path("/dags/{dagId}/dagRuns");
-                
-                // Add query parameters if they exist
-                if (queryParams != null) {
-                    for (Map.Entry<String, String> entry : queryParams.entrySet()) {
-                        if (entry.getValue() != null && !entry.getValue().isEmpty()) {
-                            uriBuilder = uriBuilder.queryParam(entry.getKey(), entry.getValue());
+        return requestCoalescer.coalesce(
+            AirflowRequestCoalescer.key("/dags/{dagId}/dagRuns", queryParams, dagId),
+            () -> airflowWebClient.get()
+                .uri(uriBuilder -> {
+                    uriBuilder = uriBuilder.path("/dags/{dagId}/dagRuns");
+                    
+                    // Add query parameters if they exist
+                    if (queryParams != null) {
+                        for (Map.Entry<String, String> entry : queryParams.entrySet()) {
+                            if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                                uriBuilder = uriBuilder.queryParam(entry.getKey(), entry.getValue());
+                            }
                         }
                     }
-                }
-                
-                return uriBuilder.build(dagId);
-            })
-            .retrieve()
-            .onStatus(
-                status -> status.value() == HttpStatus.NOT_FOUND.value(),
-                response -> Mono.error(new AirflowResourceNotFoundException("DAG not found: " + dagId))
-            )
-            .bodyToMono(DagRunCollection.class);
+                    
+                    return uriBuilder.build(dagId);
+                })
+                .retrieve()
+                .onStatus(
+                    status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                    response -> Mono.error(new AirflowResourceNotFoundException("DAG not found: " + dagId))
+                )
+                .bodyToMono(DagRunCollection.class)
+        );
     }
     
     // For backward compatibility
@@ -62,6 +72,25 @@ public class DagRunService {
         return getDagRuns(dagId, null);
     }
 
+    /**
+     * Streams all DAG runs matching the query parameters, reading Airflow's pages concurrently
+     */
+    public Flux<DagRun> streamDagRuns(String dagId, Map<String, String> queryParams) {
+        return pageLoader.loadAll(
+            (offset, limit) -> {
+                Map<String, String> pageParams = new HashMap<>();
+                if (queryParams != null) {
+                    pageParams.putAll(queryParams);
+                }
+                pageParams.put("offset", String.valueOf(offset));
+                pageParams.put("limit", String.valueOf(limit));
+                return getDagRuns(dagId, pageParams);
+            },
+            DagRunCollection::getDagRuns,
+            DagRunCollection::getTotalEntries
+        );
+    }
+
     public Mono<DagRun> createDagRun(String dagId, DagRunCreate dagRunCreate) {
         String details = "Triggered DAG run" + 
             (dagRunCreate.getLogicalDate() != null ? " for date: " + dagRunCreate.getLogicalDate() : "");
@@ -86,16 +115,19 @@ public class DagRunService {
     }
 
     public Mono<DagRun> getDagRun(String dagId, String dagRunId) {
-        return airflowWebClient.get()
-            .uri("/dags/{dagId}/dagRuns/{dagRunId}", dagId, dagRunId)
-            .retrieve()
-            .onStatus(
-                status -> status.value() == HttpStatus.NOT_FOUND.value(),
-                response -> Mono.error(new AirflowResourceNotFoundException(
-                    String.format("DAG Run not found: dagId=%s, dagRunId=%s", dagId, dagRunId)
-                ))
-            )
-            .bodyToMono(DagRun.class);
+        return requestCoalescer.coalesce(
+            AirflowRequestCoalescer.key("/dags/{dagId}/dagRuns/{dagRunId}", null, dagId, dagRunId),
+            () -> airflowWebClient.get()
+                .uri("/dags/{dagId}/dagRuns/{dagRunId}", dagId, dagRunId)
+                .retrieve()
+                .onStatus(
+                    status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                    response -> Mono.error(new AirflowResourceNotFoundException(
+                        String.format("DAG Run not found: dagId=%s, dagRunId=%s", dagId, dagRunId)
+                    ))
+                )
+                .bodyToMono(DagRun.class)
+        );
     }
 
     public Mono<Void> deleteDagRun(String dagId, String dagRunId) {
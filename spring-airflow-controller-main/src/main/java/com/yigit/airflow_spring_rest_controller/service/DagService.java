@@ -3,6 +3,8 @@ package com.yigit.airflow_spring_rest_controller.service;
 import com.yigit.airflow_spring_rest_controller.dto.dag.Dag;
 import com.yigit.airflow_spring_rest_controller.dto.dag.DagCollection;
 import com.yigit.airflow_spring_rest_controller.dto.dag.DagDetail;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagQuery;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagSearchResult;
 import com.yigit.airflow_spring_rest_controller.dto.dag.DagUpdate;
 import com.yigit.airflow_spring_rest_controller.dto.task.TaskCollection;
 import com.yigit.airflow_spring_rest_controller.dto.task.TaskInstanceCollection;
@@ -10,44 +12,218 @@ import com.yigit.airflow_spring_rest_controller.dto.task.TaskInstanceStateUpdate
 import com.yigit.airflow_spring_rest_controller.entity.AuditLogOperation;
 import com.yigit.airflow_spring_rest_controller.exception.AirflowResourceNotFoundException;
 import com.yigit.airflow_spring_rest_controller.exception.AirflowConflictException;
+import com.yigit.airflow_spring_rest_controller.service.cache.DagCatalogCache;
+import com.yigit.airflow_spring_rest_controller.service.search.DagSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 public class DagService {
 
     private final WebClient airflowWebClient;
     private final AuditLogService auditLogService;
+    private final DagCatalogCache dagCatalogCache;
+    private final AirflowPageLoader pageLoader;
+    private final DagSearchIndex dagSearchIndex;
+    private final AirflowRequestCoalescer requestCoalescer;
     private static final Logger log = LoggerFactory.getLogger(DagService.class);
+    private static final String CATALOG_CACHE_KEY = "dags";
+
+    /**
+     * Airflow order_by fields supported when a query is evaluated on the cached catalog, ties are broken by dag_id
+     */
+    private static final Map<String, Comparator<Dag>> LOCAL_ORDERINGS = Map.of(
+        "dag_id", Comparator.comparing(Dag::getDagId),
+        "dag_display_name", orderingBy(Dag::getDagDisplayName),
+        "is_paused", orderingBy(Dag::getIsPaused),
+        "is_active", orderingBy(Dag::getIsActive),
+        "last_parsed_time", orderingBy(Dag::getLastParsedTime),
+        "next_dagrun", orderingBy(Dag::getNextDagrun)
+    );
 
     @Autowired
-    public DagService(WebClient airflowWebClient, AuditLogService auditLogService) {
+    public DagService(WebClient airflowWebClient, AuditLogService auditLogService,
+                      DagCatalogCache dagCatalogCache, AirflowPageLoader pageLoader,
+                      DagSearchIndex dagSearchIndex, AirflowRequestCoalescer requestCoalescer) {
         this.airflowWebClient = airflowWebClient;
         this.auditLogService = auditLogService;
+        this.dagCatalogCache = dagCatalogCache;
+        this.pageLoader = pageLoader;
+        this.dagSearchIndex = dagSearchIndex;
+        this.requestCoalescer = requestCoalescer;
     }
 
     public Mono<DagCollection> getDags() {
+        return dagCatalogCache.get(CATALOG_CACHE_KEY, this::fetchDags);
+    }
+
+    /**
+     * Streams the whole DAG catalog, reading Airflow's pages concurrently.
+     * Inactive DAGs are included so the catalog can answer isActive=false queries,
+     * listings and search results built from it default to active DAGs like Airflow does.
+     */
+    public Flux<Dag> streamDags() {
+        return pageLoader.loadAll(
+            (offset, limit) -> fetchDags(DagQuery.builder().isActive(false).orderBy("dag_id").offset(offset).limit(limit).build()),
+            DagCollection::getDags,
+            DagCollection::getTotalEntries
+        );
+    }
+
+    private Mono<DagCollection> fetchDags() {
+        return streamDags()
+            .collectList()
+            .map(dags -> {
+                DagCollection catalog = new DagCollection();
+                catalog.setDags(dags);
+                catalog.setTotalEntries(dags.size());
+                return catalog;
+            })
+            .doOnNext(catalog -> dagSearchIndex.update(catalog.getDags()));
+    }
+
+    /**
+     * Ranked search over DAG ID, display name, description, tags and owners
+     *
+     * @param text   the search text
+     * @param prefix true for autocomplete (prefix) matching
+     * @param limit  maximum number of hits
+     */
+    public Mono<DagSearchResult> searchDags(String text, boolean prefix, int limit) {
+        // Loading the catalog keeps the index up to date with the cache
+        return getDags()
+            .map(catalog -> dagSearchIndex.search(text, prefix, limit));
+    }
+
+    /**
+     * Lists DAGs matching the query.
+     * Filtering and pagination are done by Airflow; only criteria Airflow cannot evaluate
+     * are applied locally on the cached catalog.
+     */
+    public Mono<DagCollection> getDags(DagQuery query) {
+        if (query.getOffset() < 0 || query.getLimit() < 1) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Offset must not be negative and limit must be positive"));
+        }
+        if (query.requiresLocalFiltering()) {
+            if (query.getOrderBy() != null && !query.getOrderBy().isEmpty()
+                    && !LOCAL_ORDERINGS.containsKey(orderField(query.getOrderBy()))) {
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unsupported orderBy for search and inactive DAG queries: " + query.getOrderBy()
+                        + ", supported fields are " + LOCAL_ORDERINGS.keySet()));
+            }
+            return getDags().map(catalog -> filterLocally(catalog, query));
+        }
+        return dagCatalogCache.get(query.toCacheKey(), () -> fetchDags(query));
+    }
+
+    private Mono<DagCollection> fetchDags(DagQuery query) {
         return airflowWebClient.get()
-            .uri("/dags")
+            .uri(uriBuilder -> {
+                // User supplied values are passed as URI variables so they get encoded
+                Map<String, Object> variables = new HashMap<>();
+                uriBuilder.path("/dags")
+                    .queryParam("limit", query.getLimit())
+                    .queryParam("offset", query.getOffset());
+                // Airflow lists active DAGs only unless only_active=false is passed
+                if (query.getIsActive() != null) {
+                    uriBuilder.queryParam("only_active", query.getIsActive());
+                }
+                if (query.getIsPaused() != null) {
+                    uriBuilder.queryParam("paused", query.getIsPaused());
+                }
+                if (query.getDagIdPattern() != null && !query.getDagIdPattern().isEmpty()) {
+                    uriBuilder.queryParam("dag_id_pattern", "{dagIdPattern}");
+                    variables.put("dagIdPattern", query.getDagIdPattern());
+                }
+                if (query.getTags() != null) {
+                    for (int i = 0; i < query.getTags().size(); i++) {
+                        uriBuilder.queryParam("tags", "{tag" + i + "}");
+                        variables.put("tag" + i, query.getTags().get(i));
+                    }
+                }
+                if (query.getOrderBy() != null && !query.getOrderBy().isEmpty()) {
+                    uriBuilder.queryParam("order_by", "{orderBy}");
+                    variables.put("orderBy", query.getOrderBy());
+                }
+                return uriBuilder.build(variables);
+            })
             .retrieve()
             .bodyToMono(DagCollection.class);
     }
 
+    private DagCollection filterLocally(DagCollection catalog, DagQuery query) {
+        Set<String> searchMatches = query.getSearch() != null && !query.getSearch().isEmpty()
+            ? dagSearchIndex.matchingDagIds(query.getSearch())
+            : null;
+        String dagIdPattern = query.getDagIdPattern() != null ? query.getDagIdPattern().toLowerCase(Locale.ROOT) : null;
+        List<String> tags = query.getTags();
+        // Without isActive only active DAGs are listed, as by Airflow
+        boolean active = query.getIsActive() == null || query.getIsActive();
+
+        List<Dag> filteredDags = catalog.getDags().stream()
+            .filter(dag -> Boolean.TRUE.equals(dag.getIsActive()) == active)
+            .filter(dag -> query.getIsPaused() == null || Objects.equals(dag.getIsPaused(), query.getIsPaused()))
+            .filter(dag -> dagIdPattern == null || dag.getDagId().toLowerCase(Locale.ROOT).contains(dagIdPattern))
+            .filter(dag -> tags == null || tags.isEmpty() || (dag.getTags() != null &&
+                dag.getTags().stream().anyMatch(tag -> tags.contains(tag.getName()))))
+            .filter(dag -> searchMatches == null || searchMatches.contains(dag.getDagId()))
+            .collect(Collectors.toList());
+
+        // The catalog is already ordered by dag_id
+        if (query.getOrderBy() != null && !query.getOrderBy().isEmpty() && !"dag_id".equals(query.getOrderBy())) {
+            Comparator<Dag> ordering = LOCAL_ORDERINGS.get(orderField(query.getOrderBy()));
+            filteredDags.sort(query.getOrderBy().startsWith("-") ? ordering.reversed() : ordering);
+        }
+
+        int totalElements = filteredDags.size();
+        int fromIndex = Math.min(query.getOffset(), totalElements);
+        int toIndex = Math.min(fromIndex + query.getLimit(), totalElements);
+
+        DagCollection page = new DagCollection();
+        page.setDags(filteredDags.subList(fromIndex, toIndex));
+        page.setTotalEntries(totalElements);
+        return page;
+    }
+
+    private static String orderField(String orderBy) {
+        return orderBy.startsWith("-") ? orderBy.substring(1) : orderBy;
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<Dag> orderingBy(Function<Dag, T> field) {
+        return Comparator.comparing(field, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Dag::getDagId);
+    }
+
     public Mono<Dag> getDag(String dagId) {
-        return airflowWebClient.get()
-            .uri("/dags/{dagId}", dagId)
-            .retrieve()
-            .onStatus(
-                status -> status.value() == HttpStatus.NOT_FOUND.value(),
-                response -> Mono.error(new AirflowResourceNotFoundException("DAG not found: " + dagId))
-            )
-            .bodyToMono(Dag.class);
+        return requestCoalescer.coalesce(
+            AirflowRequestCoalescer.key("/dags/{dagId}", null, dagId),
+            () -> airflowWebClient.get()
+                .uri("/dags/{dagId}", dagId)
+                .retrieve()
+                .onStatus(
+                    status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                    response -> Mono.error(new AirflowResourceNotFoundException("DAG not found: " + dagId))
+                )
+                .bodyToMono(Dag.class)
+        );
     }
 
     public Mono<Dag> updateDag(String dagId, DagUpdate dagUpdate) {
@@ -71,6 +247,7 @@ public class DagService {
                 response -> Mono.error(new AirflowConflictException("Conflict updating DAG: " + dagId))
             )
             .bodyToMono(Dag.class)
+            .doOnNext(dag -> dagCatalogCache.invalidate(dagId))
             .flatMap(dag -> 
                 auditLogService.logOperation(dagId, operation, details)
                     .thenReturn(dag)
@@ -96,30 +273,37 @@ public class DagService {
                         response -> Mono.error(new AirflowConflictException("Cannot delete DAG with running instances: " + dagId))
                     )
                     .bodyToMono(Void.class)
+                    .doOnSuccess(v -> dagCatalogCache.invalidate(dagId))
                     .doOnSuccess(v -> log.info("Successfully deleted DAG: {}", dagId))
                     .doOnError(error -> log.error("Failed to delete DAG {}: {}", dagId, error.getMessage()))
             );
     }
 
     public Mono<TaskCollection> getDagTasks(String dagId) {
-        return airflowWebClient.get()
-            .uri("/dags/{dagId}/tasks", dagId)
-            .retrieve()
-            .onStatus(
-                status -> status.value() == HttpStatus.NOT_FOUND.value(),
-                response -> Mono.error(new AirflowResourceNotFoundException("DAG not found: " + dagId))
-            )
-            .bodyToMono(TaskCollection.class);
+        return requestCoalescer.coalesce(
+            AirflowRequestCoalescer.key("/dags/{dagId}/tasks", null, dagId),
+            () -> airflowWebClient.get()
+                .uri("/dags/{dagId}/tasks", dagId)
+                .retrieve()
+                .onStatus(
+                    status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                    response -> Mono.error(new AirflowResourceNotFoundException("DAG not found: " + dagId))
+                )
+                .bodyToMono(TaskCollection.class)
+        );
     }
 
     public Mono<DagDetail> getDagDetails(String dagId) {
-        return airflowWebClient.get()
-            .uri("/dags/{dagId}/details", dagId)
-            .retrieve()
-            .onStatus(
-                status -> status.value() == HttpStatus.NOT_FOUND.value(),
-                response -> Mono.error(new AirflowResourceNotFoundException("DAG not found: " + dagId))
-            )
-            .bodyToMono(DagDetail.class);
+        return requestCoalescer.coalesce(
+            AirflowRequestCoalescer.key("/dags/{dagId}/details", null, dagId),
+            () -> airflowWebClient.get()
+                .uri("/dags/{dagId}/details", dagId)
+                .retrieve()
+                .onStatus(
+                    status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                    response -> Mono.error(new AirflowResourceNotFoundException("DAG not found: " + dagId))
+                )
+                .bodyToMono(DagDetail.class)
+        );
     }
 } 
\ No newline at end of file
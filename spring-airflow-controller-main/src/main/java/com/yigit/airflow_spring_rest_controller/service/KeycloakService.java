@@ -35,6 +35,7 @@ public class KeycloakService {
      * Configures the Keycloak service
      */
     public KeycloakService(
+            WebClient.Builder webClientBuilder,
             @Value("${keycloak.auth-server-url}") String authServerUrl,
             @Value("${keycloak.realm}") String realm,
             @Value("${keycloak.resource}") String clientId,
@@ -44,7 +45,7 @@ public class KeycloakService {
         this.clientId = clientId;
         this.clientSecret = clientSecret;
         
-        this.webClient = WebClient.builder()
+        this.webClient = webClientBuilder
                 .baseUrl(authServerUrl)
                 .build();
         
@@ -1,28 +1,177 @@
 package com.yigit.airflow_spring_rest_controller.service;
 
+import com.yigit.airflow_spring_rest_controller.dto.log.TaskLogChunk;
+import com.yigit.airflow_spring_rest_controller.exception.AirflowResourceNotFoundException;
+import com.yigit.airflow_spring_rest_controller.service.logs.AirflowLogContent;
+import com.yigit.airflow_spring_rest_controller.service.logs.CachedTaskLog;
+import com.yigit.airflow_spring_rest_controller.service.logs.TaskLogCache;
+import com.yigit.airflow_spring_rest_controller.service.logs.TaskLogKey;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Service
 public class LogService {
 
+    static final String LOGS_PATH = "/dags/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}/logs/{tryNumber}";
+
     private final WebClient airflowWebClient;
+    private final TaskInstanceService taskInstanceService;
+    private final TaskLogCache taskLogCache;
 
     @Autowired
-    public LogService(WebClient airflowWebClient) {
+    public LogService(WebClient airflowWebClient, TaskInstanceService taskInstanceService, TaskLogCache taskLogCache) {
         this.airflowWebClient = airflowWebClient;
+        this.taskInstanceService = taskInstanceService;
+        this.taskLogCache = taskLogCache;
     }
 
     public Mono<String> getTaskLogs(String dagId, String dagRunId, String taskId, Integer tryNumber) {
-        UriComponentsBuilder uriBuilder = UriComponentsBuilder
-            .fromPath("/dags/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}/logs/{tryNumber}");
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromPath(LOGS_PATH);
 
         return airflowWebClient.get()
             .uri(uriBuilder.buildAndExpand(dagId, dagRunId, taskId, tryNumber).toUriString())
             .retrieve()
             .bodyToMono(String.class);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Streams the raw log of a task try as it arrives from Airflow.
+     * The buffers are relayed as they are, without decoding and without the in-memory size limit
+     * of the WebClient codecs, so memory use does not depend on the size of the log.
+     * Full logs of finished tries are served from the task log cache.
+     *
+     * @param dagId       the DAG ID
+     * @param dagRunId    the DAG run ID
+     * @param taskId      the task ID
+     * @param tryNumber   the task try number
+     * @param fullContent whether Airflow should return the full log instead of its default chunk
+     * @param token       continuation token of a previous log request, may be null
+     * @param mapIndex    map index of a mapped task, may be null
+     * @return Flux<DataBuffer> the log content
+     */
+    public Flux<DataBuffer> streamTaskLogs(String dagId, String dagRunId, String taskId, Integer tryNumber,
+                                           boolean fullContent, String token, Integer mapIndex) {
+        boolean cacheable = taskLogCache.isEnabled() && fullContent && (token == null || token.isEmpty()) && mapIndex == null;
+        if (!cacheable) {
+            return fetchTaskLogs(dagId, dagRunId, taskId, tryNumber, fullContent, token, mapIndex);
+        }
+
+        TaskLogKey key = new TaskLogKey(dagId, dagRunId, taskId, tryNumber);
+        if (taskLogCache.lookup(key) != null) {
+            return taskLogCache.get(key, () -> fetchTaskLogs(dagId, dagRunId, taskId, tryNumber, true, null, null));
+        }
+        // Only the log of a finished try is final and may be cached
+        return taskInstanceService.getTaskInstance(dagId, dagRunId, taskId)
+            .map(taskInstance -> taskInstance.isTryFinished(tryNumber))
+            .flatMapMany(finished -> finished
+                ? taskLogCache.get(key, () -> fetchTaskLogs(dagId, dagRunId, taskId, tryNumber, true, null, null))
+                : fetchTaskLogs(dagId, dagRunId, taskId, tryNumber, true, null, null));
+    }
+
+    /**
+     * Returns the cached log of a finished try, reading it into the cache first if needed
+     *
+     * @return Mono<CachedTaskLog> the cache entry, empty when the cache is disabled or the try has not finished
+     */
+    public Mono<CachedTaskLog> getCachedTaskLog(String dagId, String dagRunId, String taskId, Integer tryNumber) {
+        if (!taskLogCache.isEnabled()) {
+            return Mono.empty();
+        }
+        TaskLogKey key = new TaskLogKey(dagId, dagRunId, taskId, tryNumber);
+        CachedTaskLog cached = taskLogCache.lookup(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return taskInstanceService.getTaskInstance(dagId, dagRunId, taskId)
+            .filter(taskInstance -> taskInstance.isTryFinished(tryNumber))
+            .flatMap(taskInstance -> taskLogCache.getEntry(key,
+                () -> fetchTaskLogs(dagId, dagRunId, taskId, tryNumber, true, null, null)));
+    }
+
+    /**
+     * Returns the cache entry of a log without loading it
+     *
+     * @return CachedTaskLog the entry, null when the log is not cached or the cache is disabled
+     */
+    public CachedTaskLog lookupCachedTaskLog(String dagId, String dagRunId, String taskId, Integer tryNumber) {
+        return taskLogCache.isEnabled() ? taskLogCache.lookup(new TaskLogKey(dagId, dagRunId, taskId, tryNumber)) : null;
+    }
+
+    /**
+     * Streams the full raw log of a task try from Airflow, without reading or filling the task log cache
+     */
+    public Flux<DataBuffer> fetchTaskLogs(String dagId, String dagRunId, String taskId, Integer tryNumber, Integer mapIndex) {
+        return fetchTaskLogs(dagId, dagRunId, taskId, tryNumber, true, null, mapIndex);
+    }
+
+    /**
+     * Decompressed content of a log read into the task log cache
+     */
+    public Flux<DataBuffer> readCachedTaskLog(CachedTaskLog entry) {
+        return taskLogCache.read(entry);
+    }
+
+    private Flux<DataBuffer> fetchTaskLogs(String dagId, String dagRunId, String taskId, Integer tryNumber,
+                                           boolean fullContent, String token, Integer mapIndex) {
+        return airflowWebClient.get()
+            .uri(uriBuilder -> {
+                uriBuilder = uriBuilder.path(LOGS_PATH)
+                    .queryParam("full_content", fullContent);
+                if (token != null && !token.isEmpty()) {
+                    uriBuilder = uriBuilder.queryParam("token", "{token}");
+                }
+                if (mapIndex != null) {
+                    uriBuilder = uriBuilder.queryParam("map_index", mapIndex);
+                }
+                return token != null && !token.isEmpty()
+                    ? uriBuilder.build(dagId, dagRunId, taskId, tryNumber, token)
+                    : uriBuilder.build(dagId, dagRunId, taskId, tryNumber);
+            })
+            .accept(MediaType.TEXT_PLAIN)
+            .retrieve()
+            .onStatus(
+                status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                response -> Mono.error(new AirflowResourceNotFoundException(
+                    String.format("Task instance log not found: dagId=%s, dagRunId=%s, taskId=%s, tryNumber=%d",
+                        dagId, dagRunId, taskId, tryNumber)))
+            )
+            .bodyToFlux(DataBuffer.class);
+    }
+
+    /**
+     * Reads the next chunk of a task log in JSON mode.
+     * Passing the continuation token of the previous chunk returns only the content appended since.
+     * The content is the log text, unwrapped from the (host, message) tuples of Airflow 2.
+     *
+     * @param token continuation token of the previous chunk, null to read from the beginning
+     * @return Mono<TaskLogChunk> the content and the token for the next read
+     */
+    public Mono<TaskLogChunk> getTaskLogChunk(String dagId, String dagRunId, String taskId, Integer tryNumber,
+                                              String token) {
+        return airflowWebClient.get()
+            .uri(uriBuilder -> {
+                uriBuilder = uriBuilder.path(LOGS_PATH);
+                if (token == null) {
+                    return uriBuilder.build(dagId, dagRunId, taskId, tryNumber);
+                }
+                return uriBuilder.queryParam("token", "{token}").build(dagId, dagRunId, taskId, tryNumber, token);
+            })
+            .accept(MediaType.APPLICATION_JSON)
+            .retrieve()
+            .onStatus(
+                status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                response -> Mono.error(new AirflowResourceNotFoundException(
+                    String.format("Task instance log not found: dagId=%s, dagRunId=%s, taskId=%s, tryNumber=%d",
+                        dagId, dagRunId, taskId, tryNumber)))
+            )
+            .bodyToMono(TaskLogChunk.class)
+            .doOnNext(chunk -> chunk.setContent(AirflowLogContent.unwrap(chunk.getContent())));
+    }
+}
@@ -9,7 +9,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,25 +19,33 @@ import java.util.Map;
 public class TaskInstanceService {
     
     private final WebClient airflowWebClient;
+    private final AirflowPageLoader pageLoader;
+    private final AirflowRequestCoalescer requestCoalescer;
 
     @Autowired
-    public TaskInstanceService(WebClient airflowWebClient) {
+    public TaskInstanceService(WebClient airflowWebClient, AirflowPageLoader pageLoader,
+                               AirflowRequestCoalescer requestCoalescer) {
         this.airflowWebClient = airflowWebClient;
+        this.pageLoader = pageLoader;
+        this.requestCoalescer = requestCoalescer;
     }
 
     public Mono<TaskInstance> getTaskInstance(String dagId, String dagRunId, String taskId) {
-        return airflowWebClient.get()
-            .uri("/dags/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}", 
-                dagId, dagRunId, taskId)
-            .retrieve()
-            .onStatus(
-                status -> status.value() == HttpStatus.NOT_FOUND.value(),
-                response -> Mono.error(new AirflowResourceNotFoundException(
-                    String.format("Task instance not found: dagId=%s, dagRunId=%s, taskId=%s", 
-                        dagId, dagRunId, taskId)
-                ))
-            )
-            .bodyToMono(TaskInstance.class);
+        return requestCoalescer.coalesce(
+            AirflowRequestCoalescer.key("/dags/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}", null, dagId, dagRunId, taskId),
+            () -> airflowWebClient.get()
+                .uri("/dags/{dagId}/dagRuns/{dagRunId}/taskInstances/{taskId}", 
+                    dagId, dagRunId, taskId)
+                .retrieve()
+                .onStatus(
+                    status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                    response -> Mono.error(new AirflowResourceNotFoundException(
+                        String.format("Task instance not found: dagId=%s, dagRunId=%s, taskId=%s", 
+                            dagId, dagRunId, taskId)
+                    ))
+                )
+                .bodyToMono(TaskInstance.class)
+        );
     }
 
     public Mono<TaskInstanceCollection> getTaskInstances(
@@ -43,24 +53,50 @@ public class TaskInstanceService {
             String dagRunId, 
             Map<String, List<String>> queryParams
     ) {
-        return airflowWebClient.get()
-            .uri(uriBuilder -> {
-                MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        return requestCoalescer.coalesce(
+            AirflowRequestCoalescer.key("/dags/{dagId}/dagRuns/{dagRunId}/taskInstances", queryParams, dagId, dagRunId),
+            () -> airflowWebClient.get()
+                .uri(uriBuilder -> {
+                    MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+                    if (queryParams != null) {
+                        queryParams.forEach(params::addAll);
+                    }
+                    
+                    uriBuilder.path("/dags/{dagId}/dagRuns/{dagRunId}/taskInstances")
+                        .queryParams(params);
+                    return uriBuilder.build(dagId, dagRunId);
+                })
+                .retrieve()
+                .onStatus(
+                    status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                    response -> Mono.error(new AirflowResourceNotFoundException(
+                        String.format("DAG Run not found: dagId=%s, dagRunId=%s", dagId, dagRunId)
+                    ))
+                )
+                .bodyToMono(TaskInstanceCollection.class)
+        );
+    }
+
+    /**
+     * Streams all task instances of a DAG run, reading Airflow's pages concurrently
+     */
+    public Flux<TaskInstance> streamTaskInstances(
+            String dagId,
+            String dagRunId,
+            Map<String, List<String>> queryParams
+    ) {
+        return pageLoader.loadAll(
+            (offset, limit) -> {
+                Map<String, List<String>> pageParams = new HashMap<>();
                 if (queryParams != null) {
-                    queryParams.forEach(params::addAll);
+                    pageParams.putAll(queryParams);
                 }
-                
-                uriBuilder.path("/dags/{dagId}/dagRuns/{dagRunId}/taskInstances")
-                    .queryParams(params);
-                return uriBuilder.build(dagId, dagRunId);
-            })
-            .retrieve()
-            .onStatus(
-                status -> status.value() == HttpStatus.NOT_FOUND.value(),
-                response -> Mono.error(new AirflowResourceNotFoundException(
-                    String.format("DAG Run not found: dagId=%s, dagRunId=%s", dagId, dagRunId)
-                ))
-            )
-            .bodyToMono(TaskInstanceCollection.class);
+                pageParams.put("offset", List.of(String.valueOf(offset)));
+                pageParams.put("limit", List.of(String.valueOf(limit)));
+                return getTaskInstances(dagId, dagRunId, pageParams);
+            },
+            TaskInstanceCollection::getTaskInstances,
+            TaskInstanceCollection::getTotalEntries
+        );
     }
-} 
\ No newline at end of file
+}
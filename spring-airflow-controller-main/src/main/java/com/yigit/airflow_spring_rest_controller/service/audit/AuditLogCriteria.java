@@ -0,0 +1,129 @@
+package com.yigit.airflow_spring_rest_controller.service.audit;
+
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditLogQuery;
+import com.yigit.airflow_spring_rest_controller.entity.AuditLogOperation;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Composes audit log filters into a single SQL statement, ordered newest first.
+ *
+ * Every predicate is an equality or range on an indexed column and the ordering matches the
+ * (..., operation_time DESC, id DESC) composite indexes of db/schema.sql, so a query with a limit
+ * reads about as many index entries as it returns rows.
+ */
+public final class AuditLogCriteria {
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("operationTime"), Sort.Order.desc("id"));
+
+    private final List<Criteria> predicates = new ArrayList<>();
+
+    private AuditLogCriteria() {
+    }
+
+    public static AuditLogCriteria create() {
+        return new AuditLogCriteria();
+    }
+
+    /**
+     * Criteria of an API query, without its cursor and limit
+     */
+    public static AuditLogCriteria of(AuditLogQuery query) {
+        return create()
+            .user(query.getUserId())
+            .dag(query.getDagId())
+            .dagRun(query.getDagRunId())
+            .operations(query.getOperations())
+            .from(query.getFrom())
+            .to(query.getTo());
+    }
+
+    public AuditLogCriteria user(String userId) {
+        if (userId != null) {
+            predicates.add(Criteria.where("userId").is(userId));
+        }
+        return this;
+    }
+
+    public AuditLogCriteria dag(String dagId) {
+        if (dagId != null) {
+            predicates.add(Criteria.where("dagId").is(dagId));
+        }
+        return this;
+    }
+
+    public AuditLogCriteria dagRun(String dagRunId) {
+        if (dagRunId != null) {
+            predicates.add(Criteria.where("dagRunId").is(dagRunId));
+        }
+        return this;
+    }
+
+    public AuditLogCriteria operation(AuditLogOperation operation) {
+        if (operation != null) {
+            predicates.add(Criteria.where("operation").is(operation.name()));
+        }
+        return this;
+    }
+
+    public AuditLogCriteria operations(Collection<AuditLogOperation> operations) {
+        if (operations != null && !operations.isEmpty()) {
+            predicates.add(operations.size() == 1
+                ? Criteria.where("operation").is(operations.iterator().next().name())
+                : Criteria.where("operation").in(operations.stream().map(Enum::name).toList()));
+        }
+        return this;
+    }
+
+    /**
+     * @param from start of the time range, inclusive
+     */
+    public AuditLogCriteria from(LocalDateTime from) {
+        if (from != null) {
+            predicates.add(Criteria.where("operationTime").greaterThanOrEquals(from));
+        }
+        return this;
+    }
+
+    /**
+     * @param to end of the time range, exclusive
+     */
+    public AuditLogCriteria to(LocalDateTime to) {
+        if (to != null) {
+            predicates.add(Criteria.where("operationTime").lessThan(to));
+        }
+        return this;
+    }
+
+    /**
+     * Only rows following the cursor in the newest first ordering.
+     * The OR of the keyset predicate bounds no index, the redundant operation_time <= t makes the
+     * (..., operation_time DESC, id DESC) indexes start the scan at the cursor and lets Postgres prune
+     * newer partitions, so a deep page costs the same as the first one.
+     */
+    public AuditLogCriteria after(AuditLogCursor cursor) {
+        if (cursor != null) {
+            predicates.add(Criteria.where("operationTime").lessThanOrEquals(cursor.operationTime()));
+            predicates.add(Criteria.where("operationTime").lessThan(cursor.operationTime())
+                .or(Criteria.where("operationTime").is(cursor.operationTime()).and("id").lessThan(cursor.id())));
+        }
+        return this;
+    }
+
+    public Criteria toCriteria() {
+        return predicates.isEmpty() ? Criteria.empty() : Criteria.from(predicates);
+    }
+
+    public Query toQuery() {
+        return Query.query(toCriteria()).sort(NEWEST_FIRST);
+    }
+
+    public Query toQuery(int limit) {
+        return toQuery().limit(limit);
+    }
+}
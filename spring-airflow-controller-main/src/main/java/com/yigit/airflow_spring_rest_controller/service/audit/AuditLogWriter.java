@@ -0,0 +1,246 @@
+package com.yigit.airflow_spring_rest_controller.service.audit;
+
+import com.yigit.airflow_spring_rest_controller.dto.metrics.AuditWriterStats;
+import com.yigit.airflow_spring_rest_controller.entity.AuditLog;
+import com.yigit.airflow_spring_rest_controller.entity.AuditLogOperation;
+import com.yigit.airflow_spring_rest_controller.repository.AuditLogRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persists audit log entries, either synchronously or write-behind.
+ *
+ * In write-behind mode entries are queued in a bounded buffer and the caller continues right away.
+ * The buffer is flushed as multi-row INSERTs when a batch is full and on a fixed delay. Operations
+ * configured as synchronous are still saved before the caller continues. When the buffer is full,
+ * entries are saved synchronously as well, which slows callers down to the speed of the database
+ * instead of dropping entries. Every insert updates the hourly rollups in the same transaction.
+ */
+@Component
+public class AuditLogWriter {
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_COLUMNS =
+        "INSERT INTO audit_logs (user_id, username, dag_id, dag_run_id, operation, operation_time, details) VALUES ";
+
+    private final AuditLogRepository auditLogRepository;
+    private final DatabaseClient databaseClient;
+    private final AuditRollupService auditRollupService;
+    private final TransactionalOperator transactionalOperator;
+    private final boolean writeBehind;
+    private final Set<AuditLogOperation> synchronousOperations;
+    private final int batchSize;
+    private final int capacity;
+    private final Duration shutdownTimeout;
+
+    private final BlockingQueue<AuditLog> buffer;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRows = new LongAdder();
+    private final LongAdder synchronousWrites = new LongAdder();
+    private final LongAdder overflowWrites = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+
+    @Autowired
+    public AuditLogWriter(
+            AuditLogRepository auditLogRepository,
+            DatabaseClient databaseClient,
+            AuditRollupService auditRollupService,
+            ReactiveTransactionManager transactionManager,
+            @Value("${gateway.audit.write-behind.enabled:false}") boolean writeBehind,
+            @Value("${gateway.audit.write-behind.synchronous-operations:DELETE}") Set<AuditLogOperation> synchronousOperations,
+            @Value("${gateway.audit.write-behind.batch-size:200}") int batchSize,
+            @Value("${gateway.audit.write-behind.capacity:10000}") int capacity,
+            @Value("${gateway.audit.write-behind.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.auditLogRepository = auditLogRepository;
+        this.databaseClient = databaseClient;
+        this.auditRollupService = auditRollupService;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.writeBehind = writeBehind;
+        this.synchronousOperations = synchronousOperations.isEmpty()
+            ? EnumSet.noneOf(AuditLogOperation.class)
+            : EnumSet.copyOf(synchronousOperations);
+        // Postgres accepts at most 65535 bind parameters per statement, 7 are used per row
+        this.batchSize = Math.max(1, Math.min(batchSize, 5000));
+        this.capacity = capacity;
+        this.shutdownTimeout = shutdownTimeout;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    /**
+     * Saves an entry, or queues it when write-behind applies to its operation.
+     * A queued entry is returned without an ID.
+     *
+     * @return Mono<AuditLog> the saved or queued entry
+     */
+    public Mono<AuditLog> write(AuditLog auditLog) {
+        if (!writeBehind || synchronousOperations.contains(auditLog.getOperation())) {
+            synchronousWrites.increment();
+            return save(auditLog);
+        }
+        if (!buffer.offer(auditLog)) {
+            overflowWrites.increment();
+            flush();
+            return save(auditLog);
+        }
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+        return Mono.just(auditLog);
+    }
+
+    /**
+     * Flushes whatever has been buffered since the last flush
+     */
+    @Scheduled(fixedDelayString = "${gateway.audit.write-behind.flush-interval:1000}")
+    public void flushBuffered() {
+        if (!buffer.isEmpty()) {
+            flush();
+        }
+    }
+
+    public AuditWriterStats stats() {
+        AuditWriterStats stats = new AuditWriterStats();
+        stats.setWriteBehind(writeBehind);
+        stats.setBuffered(buffer.size());
+        stats.setCapacity(capacity);
+        stats.setBatches(batches.sum());
+        stats.setBatchedRows(batchedRows.sum());
+        stats.setSynchronousWrites(synchronousWrites.sum());
+        stats.setOverflowWrites(overflowWrites.sum());
+        stats.setFailedRows(failedRows.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        log.info("Flushing {} buffered audit log entries", buffer.size());
+        try {
+            drain().block(shutdownTimeout);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush audit log entries on shutdown, {} left: {}", buffer.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Starts writing batches until the buffer is empty, unless a flush is running already
+     */
+    private void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        drain()
+            .doFinally(signal -> {
+                flushing.set(false);
+                // Entries queued after the last batch was taken would otherwise wait for the next tick
+                if (buffer.size() >= batchSize) {
+                    flush();
+                }
+            })
+            .subscribe(null, e -> log.error("Audit log flush failed: {}", e.getMessage()));
+    }
+
+    private Mono<Void> drain() {
+        return Mono.defer(this::writeNextBatch)
+            .repeat(() -> !buffer.isEmpty())
+            .then();
+    }
+
+    private Mono<Void> writeNextBatch() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        buffer.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+        return insert(batch)
+            .flatMap(rows -> auditRollupService.record(batch).thenReturn(rows))
+            .as(transactionalOperator::transactional)
+            .doOnSuccess(rows -> {
+                batches.increment();
+                batchedRows.add(batch.size());
+                log.debug("Wrote batch of {} audit log entries", batch.size());
+            })
+            .then()
+            // A single bad row, e.g. of a user not synchronized yet, must not lose the rest of the batch
+            .onErrorResume(e -> {
+                log.warn("Batch insert of {} audit log entries failed, saving them one by one: {}",
+                    batch.size(), e.getMessage());
+                return Flux.fromIterable(batch)
+                    .concatMap(auditLog -> save(auditLog)
+                        .onErrorResume(rowError -> {
+                            failedRows.increment();
+                            log.error("Failed to save audit log: user={}, dag={}, operation={}, error={}",
+                                auditLog.getUsername(), auditLog.getDagId(), auditLog.getOperation(),
+                                rowError.getMessage());
+                            return Mono.empty();
+                        }))
+                    .then();
+            });
+    }
+
+    private Mono<AuditLog> save(AuditLog auditLog) {
+        return auditLogRepository.save(auditLog)
+            .flatMap(saved -> auditRollupService.record(List.of(saved)).thenReturn(saved))
+            .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Long> insert(List<AuditLog> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_COLUMNS);
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:userId").append(i)
+                .append(", :username").append(i)
+                .append(", :dagId").append(i)
+                .append(", :dagRunId").append(i)
+                .append(", :operation").append(i)
+                .append(", :operationTime").append(i)
+                .append(", :details").append(i)
+                .append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < batch.size(); i++) {
+            AuditLog auditLog = batch.get(i);
+            spec = bind(spec, "userId" + i, auditLog.getUserId(), String.class);
+            spec = bind(spec, "username" + i, auditLog.getUsername(), String.class);
+            spec = bind(spec, "dagId" + i, auditLog.getDagId(), String.class);
+            spec = bind(spec, "dagRunId" + i, auditLog.getDagRunId(), String.class);
+            spec = bind(spec, "operation" + i, auditLog.getOperation().name(), String.class);
+            spec = bind(spec, "operationTime" + i, auditLog.getOperationTime(), LocalDateTime.class);
+            spec = bind(spec, "details" + i, auditLog.getDetails(), String.class);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                          Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+}
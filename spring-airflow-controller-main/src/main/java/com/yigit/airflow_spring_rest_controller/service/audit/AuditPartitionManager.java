@@ -0,0 +1,364 @@
+package com.yigit.airflow_spring_rest_controller.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.AuditPartitionStats;
+import com.yigit.airflow_spring_rest_controller.entity.AuditLog;
+import com.yigit.airflow_spring_rest_controller.entity.AuditLogOperation;
+import com.yigit.airflow_spring_rest_controller.service.lock.JobLockService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the monthly partitions of the audit_logs table.
+ *
+ * Partitions for the current and the next months are created ahead of time, so inserts never fall into
+ * the default partition. Rows that landed there anyway, e.g. because maintenance did not run across a
+ * month boundary, block the creation of their month's partition; the default partition is then detached,
+ * the partition created, the rows moved into it and the default partition attached again, all in one
+ * transaction. Rows left in the default partition are published as a metric. Partitions older than the retention period are detached, written to a gzipped
+ * NDJSON file in the archive directory and dropped only once the archive is complete. A partition that
+ * was detached but not dropped, e.g. because of a restart, is picked up again by the next run.
+ * Nothing is done when audit_logs is not a partitioned table. Maintenance runs on one instance of the
+ * cluster, instances starting within an hour of the last run skip it.
+ */
+@Component
+public class AuditPartitionManager {
+    private static final Logger log = LoggerFactory.getLogger(AuditPartitionManager.class);
+
+    private static final String TABLE = "audit_logs";
+    private static final String JOB_NAME = "audit-partitions";
+    private static final Duration MIN_INTERVAL = Duration.ofHours(1);
+    private static final Pattern PARTITION_NAME = Pattern.compile("audit_logs_y(\\d{4})m(\\d{2})");
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+    private final JobLockService jobLockService;
+    private final TransactionalOperator transactionalOperator;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Path archiveDirectory;
+    private final Clock clock = Clock.systemUTC();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile long defaultPartitionRows;
+    private final LongAdder movedRows = new LongAdder();
+    private final LongAdder archivedPartitions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @Autowired
+    public AuditPartitionManager(
+            DatabaseClient databaseClient,
+            ObjectMapper objectMapper,
+            JobLockService jobLockService,
+            ReactiveTransactionManager transactionManager,
+            @Value("${gateway.audit.partitions.enabled:true}") boolean enabled,
+            @Value("${gateway.audit.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${gateway.audit.partitions.retention-months:12}") int retentionMonths,
+            @Value("${gateway.audit.partitions.archive-directory:${user.home}/airflow-gateway/audit-archive}") Path archiveDirectory) {
+        this.databaseClient = databaseClient;
+        this.objectMapper = objectMapper;
+        this.jobLockService = jobLockService;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveDirectory = archiveDirectory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        // Off the startup thread, the database may be slow to answer
+        Schedulers.boundedElastic().schedule(this::maintain);
+    }
+
+    /**
+     * Creates missing partitions and expires old ones. Runs are skipped while one is in progress.
+     */
+    @Scheduled(cron = "${gateway.audit.partitions.cron:0 15 0 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // The blocking maintenance must not run on the thread the lease was acquired on. A lost lease
+            // cancels nothing here, the steps are safe to repeat by the instance that took over.
+            jobLockService.runExclusively(JOB_NAME, MIN_INTERVAL,
+                    Mono.fromRunnable(this::maintainPartitions).subscribeOn(Schedulers.boundedElastic()))
+                .block();
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.error("Audit log partition maintenance failed: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public AuditPartitionStats stats() {
+        AuditPartitionStats stats = new AuditPartitionStats();
+        stats.setDefaultPartitionRows(defaultPartitionRows);
+        stats.setMovedRows(movedRows.sum());
+        stats.setArchivedPartitions(archivedPartitions.sum());
+        stats.setFailures(failures.sum());
+        return stats;
+    }
+
+    private void maintainPartitions() {
+        if (!isPartitioned()) {
+            log.info("{} is not a partitioned table, partition maintenance skipped", TABLE);
+            return;
+        }
+        createPartitions();
+        if (retentionMonths > 0) {
+            expirePartitions();
+        }
+    }
+
+    private boolean isPartitioned() {
+        String kind = databaseClient.sql("SELECT relkind::text AS kind FROM pg_class WHERE relname = :table AND relkind IN ('r', 'p')")
+            .bind("table", TABLE)
+            .map(row -> row.get("kind", String.class))
+            .first()
+            .block();
+        return "p".equals(kind);
+    }
+
+    private void createPartitions() {
+        String defaultPartition = defaultPartition();
+        SortedSet<YearMonth> months = new TreeSet<>();
+        if (defaultPartition != null) {
+            months.addAll(defaultPartitionMonths(defaultPartition));
+        }
+        YearMonth current = YearMonth.now(clock);
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(current.plusMonths(i));
+        }
+
+        for (YearMonth month : months) {
+            try {
+                createPartition(month, defaultPartition);
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.error("Failed to create audit log partition {}: {}", partitionName(month), e.getMessage());
+            }
+        }
+
+        if (defaultPartition != null) {
+            defaultPartitionRows = count(defaultPartition);
+            if (defaultPartitionRows > 0) {
+                log.warn("{} audit log rows are outside of all monthly partitions", defaultPartitionRows);
+            }
+        }
+    }
+
+    /**
+     * Creates the partition of a month, moving the rows of that month out of the default partition first.
+     * Postgres refuses to create a partition whose rows are in the default partition.
+     */
+    private void createPartition(YearMonth month, String defaultPartition) {
+        // Identifiers and bounds are generated from the month, nothing user supplied is concatenated
+        String name = partitionName(month);
+        String create = String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+            name, TABLE, month.atDay(1), month.plusMonths(1).atDay(1));
+        if (defaultPartition == null || exists(name)) {
+            databaseClient.sql(create).then().block();
+            return;
+        }
+
+        // Inserts into audit_logs wait for the transaction, the default partition is never missing for them
+        Long moved = databaseClient.sql("ALTER TABLE " + TABLE + " DETACH PARTITION " + defaultPartition).then()
+            .then(databaseClient.sql(create).then())
+            .then(databaseClient.sql(String.format(
+                    "WITH moved AS (DELETE FROM %s WHERE operation_time >= '%s' AND operation_time < '%s' RETURNING *) "
+                        + "INSERT INTO %s SELECT * FROM moved",
+                    defaultPartition, month.atDay(1), month.plusMonths(1).atDay(1), name))
+                .fetch()
+                .rowsUpdated())
+            .flatMap(rows -> databaseClient.sql("ALTER TABLE " + TABLE + " ATTACH PARTITION " + defaultPartition + " DEFAULT")
+                .then()
+                .thenReturn(rows))
+            .as(transactionalOperator::transactional)
+            .block();
+        if (moved != null && moved > 0) {
+            movedRows.add(moved);
+            log.warn("Moved {} audit log rows from {} into the new partition {}", moved, defaultPartition, name);
+        }
+    }
+
+    /**
+     * @return String the default partition of audit_logs, null when it has none
+     */
+    private String defaultPartition() {
+        return databaseClient.sql("""
+                SELECT c.relname AS name
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = :table AND pg_get_expr(c.relpartbound, c.oid) = 'DEFAULT'
+                """)
+            .bind("table", TABLE)
+            .map(row -> row.get("name", String.class))
+            .first()
+            .block();
+    }
+
+    private List<YearMonth> defaultPartitionMonths(String defaultPartition) {
+        return databaseClient.sql("SELECT DISTINCT date_trunc('month', operation_time)::date AS month FROM " + defaultPartition)
+            .map(row -> YearMonth.from(row.get("month", LocalDate.class)))
+            .all()
+            .collectList()
+            .block();
+    }
+
+    private boolean exists(String tableName) {
+        return Boolean.TRUE.equals(databaseClient.sql("SELECT EXISTS (SELECT 1 FROM pg_class WHERE relname = :name) AS found")
+            .bind("name", tableName)
+            .map(row -> row.get("found", Boolean.class))
+            .first()
+            .block());
+    }
+
+    private long count(String tableName) {
+        return databaseClient.sql("SELECT COUNT(*) AS total FROM " + tableName)
+            .map(row -> row.get("total", Long.class))
+            .first()
+            .blockOptional()
+            .orElse(0L);
+    }
+
+    private void expirePartitions() {
+        YearMonth oldestKept = YearMonth.now(clock).minusMonths(retentionMonths);
+        List<PartitionTable> tables = databaseClient.sql("""
+                SELECT c.relname AS name, c.relispartition AS attached
+                FROM pg_class c
+                WHERE c.relkind = 'r' AND c.relname LIKE 'audit\\_logs\\_y%'
+                """)
+            .map(row -> new PartitionTable(row.get("name", String.class), Boolean.TRUE.equals(row.get("attached", Boolean.class))))
+            .all()
+            .collectList()
+            .block();
+        if (tables == null) {
+            return;
+        }
+
+        for (PartitionTable table : tables) {
+            Matcher matcher = PARTITION_NAME.matcher(table.name());
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+            try {
+                expire(table);
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                log.error("Failed to expire audit log partition {}, it is retried on the next run: {}",
+                    table.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void expire(PartitionTable table) throws IOException {
+        if (table.attached()) {
+            // Detached first so the archive is a consistent final state of the month
+            databaseClient.sql("ALTER TABLE " + TABLE + " DETACH PARTITION " + table.name()).then().block();
+            log.info("Detached audit log partition {}", table.name());
+        }
+
+        long expected = count(table.name());
+        long archived = archive(table.name());
+        if (archived != expected) {
+            throw new IOException("archived " + archived + " of " + expected + " rows");
+        }
+
+        databaseClient.sql("DROP TABLE " + table.name()).then().block();
+        archivedPartitions.increment();
+        log.info("Archived and dropped audit log partition {} with {} rows", table.name(), archived);
+    }
+
+    /**
+     * Writes all rows of a detached partition as gzipped NDJSON, oldest first
+     *
+     * @return long number of rows written
+     */
+    private long archive(String tableName) throws IOException {
+        Files.createDirectories(archiveDirectory);
+        Path target = archiveDirectory.resolve(tableName + ".ndjson.gz");
+        Path temporary = archiveDirectory.resolve(tableName + ".ndjson.gz.part");
+        AtomicLong rows = new AtomicLong();
+
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(temporary), 64 * 1024)) {
+            databaseClient.sql("SELECT * FROM " + tableName + " ORDER BY operation_time, id")
+                .map(row -> AuditLog.builder()
+                    .id(row.get("id", Long.class))
+                    .userId(row.get("user_id", String.class))
+                    .username(row.get("username", String.class))
+                    .dagId(row.get("dag_id", String.class))
+                    .dagRunId(row.get("dag_run_id", String.class))
+                    .operation(AuditLogOperation.valueOf(row.get("operation", String.class)))
+                    .operationTime(row.get("operation_time", LocalDateTime.class))
+                    .details(row.get("details", String.class))
+                    .build())
+                .all()
+                // The file is written off the driver's I/O thread
+                .publishOn(Schedulers.boundedElastic(), 256)
+                .doOnNext(auditLog -> {
+                    try {
+                        output.write(objectMapper.writeValueAsBytes(auditLog));
+                        output.write('\n');
+                        rows.incrementAndGet();
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Failed to write archive " + temporary, e);
+                    }
+                })
+                .then()
+                .block();
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows.get();
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    private record PartitionTable(String name, boolean attached) {
+    }
+}
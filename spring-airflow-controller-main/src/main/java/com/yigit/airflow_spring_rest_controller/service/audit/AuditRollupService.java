@@ -0,0 +1,221 @@
+package com.yigit.airflow_spring_rest_controller.service.audit;
+
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditAnalytics;
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditAnalyticsQuery;
+import com.yigit.airflow_spring_rest_controller.dto.audit.AuditAnalyticsRow;
+import com.yigit.airflow_spring_rest_controller.entity.AuditLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Hourly counts of audited operations per (operation, dag_id, user_id) in audit_log_rollups.
+ *
+ * Counts are added in the transaction that inserts the audit entries, so they always agree with
+ * audit_logs, and outlive the audit partitions dropped by retention. Analytics queries read the
+ * rollups only, their cost depends on the number of hours and groups in the range rather than on
+ * the number of audit entries.
+ */
+@Service
+public class AuditRollupService {
+
+    public static final Set<String> DIMENSIONS = Set.of("operation", "dag_id", "user_id");
+    public static final Set<String> INTERVALS = Set.of("hour", "day", "week", "month");
+
+    private static final String UPSERT_COLUMNS =
+        "INSERT INTO audit_log_rollups (bucket_start, operation, dag_id, user_id, username, count) VALUES ";
+    private static final String UPSERT_CONFLICT =
+        " ON CONFLICT (bucket_start, operation, dag_id, user_id)"
+            + " DO UPDATE SET count = audit_log_rollups.count + EXCLUDED.count, username = EXCLUDED.username";
+
+    private final DatabaseClient databaseClient;
+    private final int maxRows;
+
+    @Autowired
+    public AuditRollupService(DatabaseClient databaseClient,
+                              @Value("${gateway.audit.analytics.max-rows:10000}") int maxRows) {
+        this.databaseClient = databaseClient;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Adds audit entries to the rollups with one upsert statement
+     */
+    public Mono<Void> record(List<AuditLog> auditLogs) {
+        // Aggregated first, an upsert may not touch the same row twice. The sort order of the keys
+        // makes concurrent upserts lock rows in the same order.
+        Map<RollupKey, Rollup> rollups = new TreeMap<>(RollupKey.ORDER);
+        for (AuditLog auditLog : auditLogs) {
+            RollupKey key = new RollupKey(
+                auditLog.getOperationTime().truncatedTo(ChronoUnit.HOURS),
+                auditLog.getOperation().name(),
+                auditLog.getDagId(),
+                auditLog.getUserId());
+            rollups.computeIfAbsent(key, k -> new Rollup(auditLog.getUsername())).count++;
+        }
+        if (rollups.isEmpty()) {
+            return Mono.empty();
+        }
+
+        StringBuilder sql = new StringBuilder(UPSERT_COLUMNS);
+        for (int i = 0; i < rollups.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:bucket").append(i)
+                .append(", :operation").append(i)
+                .append(", :dagId").append(i)
+                .append(", :userId").append(i)
+                .append(", :username").append(i)
+                .append(", :count").append(i)
+                .append(')');
+        }
+        sql.append(UPSERT_CONFLICT);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        int i = 0;
+        for (Map.Entry<RollupKey, Rollup> entry : rollups.entrySet()) {
+            RollupKey key = entry.getKey();
+            spec = spec.bind("bucket" + i, key.bucket())
+                .bind("operation" + i, key.operation())
+                .bind("dagId" + i, key.dagId())
+                .bind("userId" + i, key.userId())
+                .bind("username" + i, entry.getValue().username)
+                .bind("count" + i, entry.getValue().count);
+            i++;
+        }
+        return spec.then();
+    }
+
+    /**
+     * Sums the rollups of a time range by the requested interval and dimensions
+     *
+     * @throws ResponseStatusException 400 for an unknown interval or dimension or an empty range
+     */
+    public Mono<AuditAnalytics> query(AuditAnalyticsQuery query) {
+        String interval = query.getInterval() != null ? query.getInterval().toLowerCase() : null;
+        if (interval != null && !INTERVALS.contains(interval)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "interval must be one of " + INTERVALS);
+        }
+        List<String> groupBy = query.getGroupBy() != null ? query.getGroupBy().stream().distinct().toList() : List.of();
+        for (String dimension : groupBy) {
+            if (!DIMENSIONS.contains(dimension)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "group_by must be any of " + DIMENSIONS);
+            }
+        }
+        LocalDateTime to = query.getTo() != null ? query.getTo() : LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        LocalDateTime from = query.getFrom() != null ? query.getFrom() : to.minusDays(7);
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        int limit = query.getLimit() > 0 ? Math.min(query.getLimit(), maxRows) : maxRows;
+
+        // Only whitelisted names are concatenated, values are bound
+        List<String> select = new ArrayList<>();
+        if (interval != null) {
+            select.add("date_trunc('" + interval + "', bucket_start)");
+        }
+        select.addAll(groupBy);
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (interval != null) {
+            sql.append("date_trunc('").append(interval).append("', bucket_start) AS bucket, ");
+        }
+        for (String dimension : groupBy) {
+            sql.append(dimension).append(", ");
+        }
+        if (groupBy.contains("user_id")) {
+            sql.append("MAX(username) AS username, ");
+        }
+        sql.append("SUM(count)::bigint AS total FROM audit_log_rollups WHERE bucket_start >= :from AND bucket_start < :to");
+
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        bindings.put("from", from);
+        bindings.put("to", to);
+        if (query.getOperations() != null && !query.getOperations().isEmpty()) {
+            sql.append(" AND operation IN (:operations)");
+            bindings.put("operations", query.getOperations().stream().map(Enum::name).toList());
+        }
+        if (query.getDagId() != null) {
+            sql.append(" AND dag_id = :dagId");
+            bindings.put("dagId", query.getDagId());
+        }
+        if (query.getUserId() != null) {
+            sql.append(" AND user_id = :userId");
+            bindings.put("userId", query.getUserId());
+        }
+        if (!select.isEmpty()) {
+            sql.append(" GROUP BY ").append(String.join(", ", select));
+        }
+        // Time series in chronological order, rankings with the largest counts first
+        sql.append(interval != null ? " ORDER BY bucket, total DESC" : " ORDER BY total DESC");
+        sql.append(" LIMIT ").append(limit);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        }
+        String finalInterval = interval;
+        return spec
+            .map((row, metadata) -> {
+                AuditAnalyticsRow result = new AuditAnalyticsRow();
+                if (finalInterval != null) {
+                    result.setBucket(row.get("bucket", LocalDateTime.class));
+                }
+                if (groupBy.contains("operation")) {
+                    result.setOperation(row.get("operation", String.class));
+                }
+                if (groupBy.contains("dag_id")) {
+                    result.setDagId(row.get("dag_id", String.class));
+                }
+                if (groupBy.contains("user_id")) {
+                    result.setUserId(row.get("user_id", String.class));
+                    result.setUsername(row.get("username", String.class));
+                }
+                Long total = row.get("total", Long.class);
+                result.setCount(total != null ? total : 0);
+                return result;
+            })
+            .all()
+            .collectList()
+            .map(rows -> {
+                AuditAnalytics analytics = new AuditAnalytics();
+                analytics.setFrom(from);
+                analytics.setTo(to);
+                analytics.setInterval(finalInterval);
+                analytics.setGroupBy(groupBy);
+                analytics.setRows(rows);
+                return analytics;
+            });
+    }
+
+    private record RollupKey(LocalDateTime bucket, String operation, String dagId, String userId) {
+        static final Comparator<RollupKey> ORDER = Comparator.comparing(RollupKey::bucket)
+            .thenComparing(RollupKey::operation)
+            .thenComparing(RollupKey::dagId)
+            .thenComparing(RollupKey::userId);
+    }
+
+    private static final class Rollup {
+        private final String username;
+        private long count;
+
+        Rollup(String username) {
+            this.username = username;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.yigit.airflow_spring_rest_controller.service.cache;
+
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagCollection;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.DagCatalogCacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache for DAG catalog responses of Airflow.
+ *
+ * Entries are fresh for the configured TTL. After that they are served stale for up to
+ * max-stale while a single background refresh reloads them; older entries are reloaded
+ * before being returned. Concurrent loads of the same key share one Airflow call.
+ * The cache is bounded both by the number of entries and by the total number of cached DAGs,
+ * least recently used entries are evicted first.
+ */
+@Component
+public class DagCatalogCache {
+    private static final Logger log = LoggerFactory.getLogger(DagCatalogCache.class);
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final int maxEntries;
+    private final long maxDags;
+
+    // Access-ordered map, guarded by its own monitor
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Mono<DagCollection>> inFlight = new ConcurrentHashMap<>();
+    private long cachedDags;
+    // Incremented on invalidation so that loads started before it are not cached
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public DagCatalogCache(
+            @Value("${airflow.cache.dags.enabled:true}") boolean enabled,
+            @Value("${airflow.cache.dags.ttl:60s}") Duration ttl,
+            @Value("${airflow.cache.dags.max-stale:5m}") Duration maxStale,
+            @Value("${airflow.cache.dags.max-entries:256}") int maxEntries,
+            @Value("${airflow.cache.dags.max-dags:50000}") long maxDags) {
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.maxEntries = maxEntries;
+        this.maxDags = maxDags;
+    }
+
+    /**
+     * Returns the cached collection for the key, loading it with the given loader when needed
+     *
+     * @param key    cache key identifying the Airflow request
+     * @param loader supplies the Airflow call for this key
+     * @return Mono<DagCollection> cached or freshly loaded collection
+     */
+    public Mono<DagCollection> get(String key, Supplier<Mono<DagCollection>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.increment();
+                return Mono.just(entry.value);
+            }
+            if (age < ttlNanos + maxStaleNanos) {
+                staleHits.increment();
+                refreshInBackground(key, loader);
+                return Mono.just(entry.value);
+            }
+        }
+
+        misses.increment();
+        return load(key, loader);
+    }
+
+    /**
+     * Drops all cached entries after a DAG has been modified.
+     * Any cached page may contain the DAG or filter on the changed attribute, so nothing is kept.
+     *
+     * @param dagId the modified DAG
+     */
+    public void invalidate(String dagId) {
+        synchronized (entries) {
+            entries.clear();
+            cachedDags = 0;
+            generation++;
+        }
+        inFlight.clear();
+        invalidations.increment();
+        log.debug("DAG catalog cache invalidated after change of DAG: {}", dagId);
+    }
+
+    public DagCatalogCacheStats stats() {
+        DagCatalogCacheStats stats = new DagCatalogCacheStats();
+        synchronized (entries) {
+            stats.setEntries(entries.size());
+            stats.setCachedDags(cachedDags);
+        }
+        stats.setHits(hits.sum());
+        stats.setStaleHits(staleHits.sum());
+        stats.setMisses(misses.sum());
+        stats.setRefreshes(refreshes.sum());
+        stats.setRefreshFailures(refreshFailures.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setInvalidations(invalidations.sum());
+        return stats;
+    }
+
+    private void refreshInBackground(String key, Supplier<Mono<DagCollection>> loader) {
+        if (inFlight.containsKey(key)) {
+            return;
+        }
+        refreshes.increment();
+        load(key, loader).subscribe(
+            collection -> log.debug("Refreshed DAG catalog cache entry: {}", key),
+            error -> {
+                refreshFailures.increment();
+                log.warn("Failed to refresh DAG catalog cache entry {}: {}", key, error.getMessage());
+            }
+        );
+    }
+
+    private Mono<DagCollection> load(String key, Supplier<Mono<DagCollection>> loader) {
+        return inFlight.computeIfAbsent(key, k -> {
+            long loadGeneration;
+            synchronized (entries) {
+                loadGeneration = generation;
+            }
+            AtomicReference<Mono<DagCollection>> self = new AtomicReference<>();
+            Mono<DagCollection> shared = loader.get()
+                .doOnNext(collection -> put(k, collection, loadGeneration))
+                .doFinally(signal -> inFlight.remove(k, self.get()))
+                .cache();
+            self.set(shared);
+            return shared;
+        });
+    }
+
+    private void put(String key, DagCollection collection, long loadGeneration) {
+        long weight = collection.getDags() != null ? collection.getDags().size() : 0;
+        if (weight > maxDags) {
+            log.warn("DAG catalog response for {} has {} DAGs, more than the cache limit of {}; not caching",
+                key, weight, maxDags);
+            return;
+        }
+
+        synchronized (entries) {
+            if (loadGeneration != generation) {
+                return;
+            }
+            Entry previous = entries.put(key, new Entry(collection, System.nanoTime(), weight));
+            cachedDags += weight - (previous != null ? previous.weight : 0);
+
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || cachedDags > maxDags) && eldest.hasNext()) {
+                Map.Entry<String, Entry> candidate = eldest.next();
+                if (candidate.getKey().equals(key)) {
+                    continue;
+                }
+                cachedDags -= candidate.getValue().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private record Entry(DagCollection value, long loadedAt, long weight) {
+    }
+}
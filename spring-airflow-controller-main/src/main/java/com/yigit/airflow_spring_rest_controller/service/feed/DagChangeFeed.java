@@ -0,0 +1,306 @@
+package com.yigit.airflow_spring_rest_controller.service.feed;
+
+import com.yigit.airflow_spring_rest_controller.dto.dag.Dag;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagChangeEvent;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagChangePage;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagCollection;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagFieldChange;
+import com.yigit.airflow_spring_rest_controller.dto.dag.Tag;
+import com.yigit.airflow_spring_rest_controller.service.DagService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Sinks;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Change feed of the DAG catalog.
+ *
+ * The catalog is read periodically through the DAG catalog cache, so the feed adds no catalog reads of
+ * its own: a fresh catalog is reused, a stale one is refreshed in the background and diffed on the next
+ * run. Every new catalog is diffed per DAG against the previous snapshot, which only holds the tracked
+ * attributes of every DAG. Detected changes get increasing sequence numbers and are
+ * kept in a bounded buffer, from which consumers catch up with a cursor, and are pushed to live subscribers.
+ * Cursors name the feed instance, so a cursor from before a restart or from another replica resets the consumer.
+ */
+@Service
+public class DagChangeFeed {
+    private static final Logger log = LoggerFactory.getLogger(DagChangeFeed.class);
+
+    /**
+     * Attributes compared between snapshots, by Airflow field name
+     */
+    private static final Map<String, Function<Dag, Object>> TRACKED_FIELDS = new LinkedHashMap<>();
+
+    static {
+        TRACKED_FIELDS.put("is_paused", Dag::getIsPaused);
+        TRACKED_FIELDS.put("is_active", Dag::getIsActive);
+        TRACKED_FIELDS.put("has_import_errors", Dag::getHasImportErrors);
+        TRACKED_FIELDS.put("next_dagrun", Dag::getNextDagrun);
+        TRACKED_FIELDS.put("next_dagrun_create_after", Dag::getNextDagrunCreateAfter);
+        TRACKED_FIELDS.put("timetable_description", Dag::getTimetableDescription);
+        TRACKED_FIELDS.put("max_active_runs", Dag::getMaxActiveRuns);
+        TRACKED_FIELDS.put("max_active_tasks", Dag::getMaxActiveTasks);
+        TRACKED_FIELDS.put("dag_display_name", Dag::getDagDisplayName);
+        TRACKED_FIELDS.put("description", Dag::getDescription);
+        TRACKED_FIELDS.put("fileloc", Dag::getFileloc);
+        TRACKED_FIELDS.put("owners", Dag::getOwners);
+        TRACKED_FIELDS.put("tags", dag -> dag.getTags() == null ? null
+            : dag.getTags().stream().map(Tag::getName).toList());
+    }
+
+    private static final String[] FIELD_NAMES = TRACKED_FIELDS.keySet().toArray(new String[0]);
+
+    private final DagService dagService;
+    private final boolean enabled;
+    private final int capacity;
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Sinks.Many<DagChangeEvent> sink = Sinks.many().multicast().directBestEffort();
+
+    // Guarded by this
+    private final Map<String, String[]> snapshot = new HashMap<>();
+    private boolean baselineTaken;
+    private final ArrayDeque<DagChangeEvent> events = new ArrayDeque<>();
+    private long sequence;
+    private DagCollection lastCatalog;
+
+    @Autowired
+    public DagChangeFeed(
+            DagService dagService,
+            @Value("${gateway.dag-feed.enabled:true}") boolean enabled,
+            @Value("${gateway.dag-feed.capacity:10000}") int capacity) {
+        this.dagService = dagService;
+        this.enabled = enabled;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Reads the cached catalog and publishes its differences to the previous snapshot.
+     * A run is skipped while the previous one is still in progress.
+     */
+    @Scheduled(fixedDelayString = "${gateway.dag-feed.interval:30000}",
+               initialDelayString = "${gateway.dag-feed.initial-delay:10000}")
+    public void poll() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        dagService.getDags()
+            .doFinally(signal -> running.set(false))
+            .subscribe(
+                this::snapshot,
+                error -> log.warn("DAG catalog snapshot failed: {}", error.getMessage()));
+    }
+
+    /**
+     * Returns up to limit changes following the cursor
+     *
+     * @param cursor cursor of the last change seen, null or empty for all retained changes
+     */
+    public synchronized DagChangePage changesAfter(String cursor, int limit) {
+        DagChangePage page = new DagChangePage();
+        page.setLatestSequence(sequence);
+        long after = cursor == null || cursor.isEmpty() ? oldestRetained() - 1 : sequenceOf(cursor);
+        if (!isResumable(after)) {
+            page.setEvents(List.of());
+            page.setNextCursor(cursor(sequence));
+            page.setReset(true);
+            return page;
+        }
+
+        List<DagChangeEvent> result = new ArrayList<>();
+        for (DagChangeEvent event : events) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (event.getSequence() > after) {
+                result.add(event);
+            }
+        }
+        page.setEvents(result);
+        page.setNextCursor(result.isEmpty() ? cursor(after) : result.get(result.size() - 1).getCursor());
+        return page;
+    }
+
+    /**
+     * Streams changes as they are detected, after replaying the buffered changes following the cursor.
+     * A cursor that cannot be resumed from is answered with a reset event first.
+     *
+     * @param lastCursor cursor of the last change seen by the consumer, null for live changes only
+     */
+    public Flux<DagChangeEvent> stream(String lastCursor) {
+        return Flux.create(emitter -> {
+            // Replay and subscription happen under the lock changes are published under, so none is lost
+            synchronized (this) {
+                if (lastCursor != null) {
+                    long after = sequenceOf(lastCursor);
+                    if (isResumable(after)) {
+                        events.stream().filter(event -> event.getSequence() > after).forEach(emitter::next);
+                    } else {
+                        emitter.next(resetEvent());
+                    }
+                }
+                Disposable subscription = sink.asFlux().subscribe(emitter::next, emitter::error, emitter::complete);
+                emitter.onDispose(subscription);
+            }
+        }, FluxSink.OverflowStrategy.BUFFER);
+    }
+
+    /**
+     * Cursors are {epoch}:{sequence}. Sequence numbers restart with the gateway and are kept per instance,
+     * the epoch identifies the feed that issued them.
+     */
+    private String cursor(long sequence) {
+        return epoch + ":" + sequence;
+    }
+
+    /**
+     * @return long the sequence number of a cursor issued by this feed, -1 for other cursors
+     */
+    private long sequenceOf(String cursor) {
+        int separator = cursor.lastIndexOf(':');
+        if (separator < 0 || !epoch.equals(cursor.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            return Math.max(-1, Long.parseLong(cursor.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Whether all changes following the sequence number are retained. Guarded by this.
+     */
+    private boolean isResumable(long after) {
+        return after >= 0 && after <= sequence && after >= oldestRetained() - 1;
+    }
+
+    /**
+     * @return long the sequence number of the oldest retained change, the next one when none is retained. Guarded by this.
+     */
+    private long oldestRetained() {
+        return events.isEmpty() ? sequence + 1 : events.peekFirst().getSequence();
+    }
+
+    private DagChangeEvent resetEvent() {
+        DagChangeEvent event = new DagChangeEvent();
+        event.setSequence(sequence);
+        event.setCursor(cursor(sequence));
+        event.setType(DagChangeEvent.RESET);
+        event.setDetectedAt(ZonedDateTime.now(ZoneOffset.UTC));
+        event.setChanges(Map.of());
+        return event;
+    }
+
+    private synchronized void snapshot(DagCollection catalog) {
+        // The cache returns the same catalog until it has been reloaded
+        if (catalog == lastCatalog || catalog.getDags() == null) {
+            return;
+        }
+        lastCatalog = catalog;
+        long started = System.nanoTime();
+        Set<String> seen = new HashSet<>();
+        for (Dag dag : catalog.getDags()) {
+            if (dag.getDagId() != null) {
+                seen.add(dag.getDagId());
+                apply(dag);
+            }
+        }
+        int removed = removeUnseen(seen);
+        log.debug("DAG catalog snapshot of {} DAGs took {} ms, {} removed",
+            seen.size(), (System.nanoTime() - started) / 1_000_000, removed);
+    }
+
+    private synchronized void apply(Dag dag) {
+        String[] current = values(dag);
+        String[] previous = snapshot.put(dag.getDagId(), current);
+        if (!baselineTaken) {
+            return;
+        }
+        if (previous == null) {
+            publish(DagChangeEvent.ADDED, dag.getDagId(), diff(new String[FIELD_NAMES.length], current));
+        } else if (!Arrays.equals(previous, current)) {
+            publish(DagChangeEvent.CHANGED, dag.getDagId(), diff(previous, current));
+        }
+    }
+
+    private synchronized int removeUnseen(Set<String> seen) {
+        int removed = 0;
+        Iterator<Map.Entry<String, String[]>> iterator = snapshot.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, String[]> entry = iterator.next();
+            if (!seen.contains(entry.getKey())) {
+                iterator.remove();
+                removed++;
+                if (baselineTaken) {
+                    publish(DagChangeEvent.REMOVED, entry.getKey(), diff(entry.getValue(), new String[FIELD_NAMES.length]));
+                }
+            }
+        }
+        if (!baselineTaken) {
+            baselineTaken = true;
+            log.info("DAG change feed baseline taken with {} DAGs", snapshot.size());
+        }
+        return removed;
+    }
+
+    private void publish(String type, String dagId, Map<String, DagFieldChange> changes) {
+        DagChangeEvent event = new DagChangeEvent();
+        event.setSequence(++sequence);
+        event.setCursor(cursor(sequence));
+        event.setType(type);
+        event.setDagId(dagId);
+        event.setDetectedAt(ZonedDateTime.now(ZoneOffset.UTC));
+        event.setChanges(changes);
+
+        events.addLast(event);
+        if (events.size() > capacity) {
+            events.removeFirst();
+        }
+        sink.tryEmitNext(event);
+    }
+
+    private static String[] values(Dag dag) {
+        String[] values = new String[FIELD_NAMES.length];
+        int i = 0;
+        for (Function<Dag, Object> field : TRACKED_FIELDS.values()) {
+            Object value = field.apply(dag);
+            values[i++] = value != null ? value.toString() : null;
+        }
+        return values;
+    }
+
+    private static Map<String, DagFieldChange> diff(String[] previous, String[] current) {
+        Map<String, DagFieldChange> changes = new LinkedHashMap<>();
+        for (int i = 0; i < FIELD_NAMES.length; i++) {
+            if (!Objects.equals(previous[i], current[i])) {
+                changes.put(FIELD_NAMES[i], new DagFieldChange(previous[i], current[i]));
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,210 @@
+package com.yigit.airflow_spring_rest_controller.service.lock;
+
+import com.yigit.airflow_spring_rest_controller.dto.metrics.JobLockStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs background jobs on one gateway instance of the cluster at a time.
+ *
+ * Every job has a row in job_leases. An instance runs a job only after taking over its lease with a
+ * conditional upsert, which succeeds when the lease is free or expired and the last successful run of
+ * the job started long enough ago. The lease is renewed while the job runs, so when the holder dies
+ * another instance takes over once it expired. A job whose lease was taken over is cancelled.
+ * Leases are identified by a token per acquisition, a late renewal or release of a lost lease has no effect.
+ */
+@Service
+public class JobLockService {
+    private static final Logger log = LoggerFactory.getLogger(JobLockService.class);
+
+    private static final String ACQUIRE = """
+        INSERT INTO job_leases (name, owner, token, acquired_at, expires_at)
+        VALUES (:name, :owner, :token, now(), now() + make_interval(secs => :leaseSeconds))
+        ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, token = EXCLUDED.token,
+            acquired_at = EXCLUDED.acquired_at, expires_at = EXCLUDED.expires_at
+        WHERE job_leases.expires_at < now()
+            AND (job_leases.last_run_at IS NULL OR job_leases.last_run_at <= now() - make_interval(secs => :minIntervalSeconds))
+        """;
+    private static final String RENEW =
+        "UPDATE job_leases SET expires_at = now() + make_interval(secs => :leaseSeconds) WHERE name = :name AND token = :token";
+    private static final String COMPLETE =
+        "UPDATE job_leases SET expires_at = now(), last_run_at = acquired_at WHERE name = :name AND token = :token";
+    private static final String RELEASE =
+        "UPDATE job_leases SET expires_at = now() WHERE name = :name AND token = :token";
+
+    private final DatabaseClient databaseClient;
+    private final String instanceId;
+    private final Duration leaseDuration;
+
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder renewals = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    @Autowired
+    public JobLockService(
+            DatabaseClient databaseClient,
+            @Value("${gateway.jobs.instance-id:}") String instanceId,
+            @Value("${gateway.jobs.lease-duration:60s}") Duration leaseDuration) {
+        this.databaseClient = databaseClient;
+        this.instanceId = StringUtils.hasText(instanceId) ? instanceId : generateInstanceId();
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * Runs a job unless another instance is running it
+     *
+     * @return Mono<T> the result of the job, empty when it was not run here
+     */
+    public <T> Mono<T> runExclusively(String job, Mono<T> work) {
+        return runExclusively(job, Duration.ZERO, work);
+    }
+
+    /**
+     * Runs a job unless another instance is running it or a successful run of it, on any instance,
+     * started less than minInterval ago
+     *
+     * @return Mono<T> the result of the job, empty when it was not run here
+     */
+    public <T> Mono<T> runExclusively(String job, Duration minInterval, Mono<T> work) {
+        return Mono.usingWhen(
+            Mono.defer(() -> acquire(job, minInterval)),
+            lease -> work.takeUntilOther(lostLease(lease)),
+            lease -> release(lease, true),
+            (lease, error) -> release(lease, false),
+            lease -> release(lease, false));
+    }
+
+    public JobLockStats stats() {
+        JobLockStats stats = new JobLockStats();
+        stats.setInstanceId(instanceId);
+        stats.setHeld(new ArrayList<>(held));
+        stats.setAcquired(acquired.sum());
+        stats.setSkipped(skipped.sum());
+        stats.setRenewals(renewals.sum());
+        stats.setLost(lost.sum());
+        stats.setErrors(errors.sum());
+        return stats;
+    }
+
+    /**
+     * @return Mono<Lease> the lease, empty when the job must not run here
+     */
+    private Mono<Lease> acquire(String job, Duration minInterval) {
+        Lease lease = new Lease(job, UUID.randomUUID().toString());
+        return databaseClient.sql(ACQUIRE)
+            .bind("name", job)
+            .bind("owner", instanceId)
+            .bind("token", lease.token())
+            .bind("leaseSeconds", seconds(leaseDuration))
+            .bind("minIntervalSeconds", seconds(minInterval))
+            .fetch()
+            .rowsUpdated()
+            .onErrorResume(e -> {
+                // Not knowing who holds the lease, the job is not run
+                errors.increment();
+                log.warn("Failed to acquire the lease of job {}, skipping it: {}", job, e.getMessage());
+                return Mono.just(0L);
+            })
+            .flatMap(rows -> {
+                if (rows == 0) {
+                    skipped.increment();
+                    log.debug("Job {} skipped, it is running or ran recently on another instance", job);
+                    return Mono.empty();
+                }
+                acquired.increment();
+                held.add(job);
+                log.debug("Acquired the lease of job {} as {}", job, instanceId);
+                return Mono.just(lease);
+            });
+    }
+
+    /**
+     * Renews the lease periodically, emits once a renewal finds it taken over
+     */
+    private Mono<Boolean> lostLease(Lease lease) {
+        Duration period = leaseDuration.dividedBy(3);
+        return Flux.interval(period, period)
+            .onBackpressureDrop()
+            .concatMap(tick -> renew(lease), 1)
+            .filter(renewed -> !renewed)
+            .next()
+            .doOnNext(renewed -> {
+                lost.increment();
+                log.warn("Lease of job {} was taken over by another instance, cancelling the job", lease.job());
+            });
+    }
+
+    private Mono<Boolean> renew(Lease lease) {
+        return databaseClient.sql(RENEW)
+            .bind("leaseSeconds", seconds(leaseDuration))
+            .bind("name", lease.job())
+            .bind("token", lease.token())
+            .fetch()
+            .rowsUpdated()
+            .map(rows -> rows > 0)
+            .doOnNext(renewed -> {
+                if (renewed) {
+                    renewals.increment();
+                }
+            })
+            .onErrorResume(e -> {
+                // Retried on the next tick, the lease is only lost once another instance took it
+                errors.increment();
+                log.warn("Failed to renew the lease of job {}: {}", lease.job(), e.getMessage());
+                return Mono.just(true);
+            });
+    }
+
+    /**
+     * Frees the lease, recording the run as the last successful one when completed
+     */
+    private Mono<Void> release(Lease lease, boolean completed) {
+        return databaseClient.sql(completed ? COMPLETE : RELEASE)
+            .bind("name", lease.job())
+            .bind("token", lease.token())
+            .then()
+            .onErrorResume(e -> {
+                errors.increment();
+                log.warn("Failed to release the lease of job {}, it expires in {}: {}", lease.job(), leaseDuration, e.getMessage());
+                return Mono.empty();
+            })
+            .doFinally(signal -> held.remove(lease.job()));
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+
+    private static String generateInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "gateway";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private record Lease(String job, String token) {
+    }
+}
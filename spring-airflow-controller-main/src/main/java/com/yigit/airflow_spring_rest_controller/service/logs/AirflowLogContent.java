@@ -0,0 +1,131 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+/**
+ * Extracts the log text from the content field of Airflow's JSON log responses.
+ *
+ * Airflow 2 returns the Python representation of a list of (host, message) tuples there,
+ * e.g. [('worker-1', '*** Reading local file\nline 1\n')]. The messages are decoded from their
+ * Python string literals and concatenated. Content in any other form is returned as it is.
+ */
+public final class AirflowLogContent {
+
+    private AirflowLogContent() {
+    }
+
+    /**
+     * @param content the content field of a log response, may be null
+     * @return String the log text, the content itself when it is not a list of (host, message) tuples
+     */
+    public static String unwrap(String content) {
+        if (content == null || !content.startsWith("[")) {
+            return content;
+        }
+        StringBuilder text = new StringBuilder(content.length());
+        Parser parser = new Parser(content);
+        if (!parser.skip('[')) {
+            return content;
+        }
+        while (parser.skip('(')) {
+            String host = parser.literal();
+            String message = host != null && parser.skip(',') ? parser.literal() : null;
+            if (message == null) {
+                return content;
+            }
+            parser.skip(',');
+            if (!parser.skip(')')) {
+                return content;
+            }
+            if (!text.isEmpty() && text.charAt(text.length() - 1) != '\n') {
+                text.append('\n');
+            }
+            text.append(message);
+            if (!parser.skip(',')) {
+                break;
+            }
+        }
+        return parser.skip(']') && parser.atEnd() ? text.toString() : content;
+    }
+
+    private static final class Parser {
+        private final String input;
+        private int position;
+
+        Parser(String input) {
+            this.input = input;
+        }
+
+        boolean atEnd() {
+            skipWhitespace();
+            return position == input.length();
+        }
+
+        boolean skip(char expected) {
+            skipWhitespace();
+            if (position < input.length() && input.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Reads a single or double quoted Python string literal
+         *
+         * @return String the decoded value, null when there is no valid literal at the position
+         */
+        String literal() {
+            skipWhitespace();
+            if (position >= input.length()) {
+                return null;
+            }
+            char quote = input.charAt(position);
+            if (quote != '\'' && quote != '"') {
+                return null;
+            }
+            StringBuilder value = new StringBuilder();
+            int i = position + 1;
+            while (i < input.length()) {
+                char c = input.charAt(i++);
+                if (c == quote) {
+                    position = i;
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (i >= input.length()) {
+                    return null;
+                }
+                char escape = input.charAt(i++);
+                switch (escape) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'x', 'u', 'U' -> {
+                        int digits = escape == 'x' ? 2 : escape == 'u' ? 4 : 8;
+                        if (i + digits > input.length()) {
+                            return null;
+                        }
+                        try {
+                            value.appendCodePoint(Integer.parseInt(input.substring(i, i + digits), 16));
+                        } catch (IllegalArgumentException e) {
+                            return null;
+                        }
+                        i += digits;
+                    }
+                    case '\\', '\'', '"' -> value.append(escape);
+                    // Python keeps unknown escapes with their backslash
+                    default -> value.append('\\').append(escape);
+                }
+            }
+            return null;
+        }
+
+        private void skipWhitespace() {
+            while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A log stored in the task log cache: its compressed data file, segment table and line index
+ */
+public class CachedTaskLog {
+
+    private final TaskLogKey key;
+    private final Path dataFile;
+    private final Path indexFile;
+    private final long rawLength;
+    private final List<LogSegment> segments;
+    private final LogLineIndex lineIndex;
+    private final long createdAt;
+    private final long sizeOnDisk;
+
+    private volatile ByteBuffer mapped;
+
+    CachedTaskLog(TaskLogKey key, Path dataFile, Path indexFile, long rawLength, List<LogSegment> segments,
+                  LogLineIndex lineIndex, long createdAt, long sizeOnDisk) {
+        this.key = key;
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        this.rawLength = rawLength;
+        this.segments = List.copyOf(segments);
+        this.lineIndex = lineIndex;
+        this.createdAt = createdAt;
+        this.sizeOnDisk = sizeOnDisk;
+    }
+
+    public TaskLogKey key() {
+        return key;
+    }
+
+    public long rawLength() {
+        return rawLength;
+    }
+
+    public List<LogSegment> segments() {
+        return segments;
+    }
+
+    public LogLineIndex lineIndex() {
+        return lineIndex;
+    }
+
+    /**
+     * Returns the position in the segment table of the segment holding the raw byte offset
+     */
+    public int segmentAt(long rawOffset) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (segments.get(middle).rawOffset() <= rawOffset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    public long createdAt() {
+        return createdAt;
+    }
+
+    Path dataFile() {
+        return dataFile;
+    }
+
+    Path indexFile() {
+        return indexFile;
+    }
+
+    long sizeOnDisk() {
+        return sizeOnDisk;
+    }
+
+    /**
+     * Read-only view of the compressed bytes of a segment, backed by a memory mapping of the data file
+     */
+    ByteBuffer segmentBytes(LogSegment segment) throws IOException {
+        return map().slice((int) segment.compressedOffset(), segment.compressedLength());
+    }
+
+    private ByteBuffer map() throws IOException {
+        ByteBuffer buffer = mapped;
+        if (buffer == null) {
+            synchronized (this) {
+                buffer = mapped;
+                if (buffer == null) {
+                    try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+                        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    }
+                    mapped = buffer;
+                }
+            }
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,255 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import com.yigit.airflow_spring_rest_controller.service.LogService;
+import com.yigit.airflow_spring_rest_controller.service.TaskInstanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports the logs of a DAG run as a ZIP archive streamed on the fly.
+ *
+ * Entries are written in a stable order. While one entry is written, the logs of the following tries are
+ * downloaded with bounded parallelism into a lookahead buffer of bounded size per log. A download that
+ * outgrows its buffer is dropped and the log is streamed from Airflow when its entry is written, so no
+ * download sits idle behind earlier entries until the read timeout fails it. Logs already in the task log
+ * cache are read from it, the export does not fill the cache. Compressed bytes are emitted as soon as the
+ * deflater produces them and no temporary files are written, memory use is bounded by concurrency times
+ * the lookahead buffer.
+ */
+@Service
+public class LogExportService {
+    private static final Logger log = LoggerFactory.getLogger(LogExportService.class);
+
+    private final LogService logService;
+    private final TaskInstanceService taskInstanceService;
+    private final int concurrency;
+    private final long lookaheadBytes;
+    private final int compressionLevel;
+
+    @Autowired
+    public LogExportService(
+            LogService logService,
+            TaskInstanceService taskInstanceService,
+            @Value("${gateway.logs.export.concurrency:4}") int concurrency,
+            @Value("${gateway.logs.export.lookahead-buffer:4MB}") DataSize lookaheadBuffer,
+            @Value("${gateway.logs.export.compression-level:6}") int compressionLevel) {
+        this.logService = logService;
+        this.taskInstanceService = taskInstanceService;
+        this.concurrency = concurrency;
+        this.lookaheadBytes = lookaheadBuffer.toBytes();
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Streams a ZIP archive with one entry per task try, named {taskId}[/map_index={i}]/attempt={n}.log
+     *
+     * @return Flux<DataBuffer> the archive
+     */
+    public Flux<DataBuffer> exportDagRunLogs(String dagId, String dagRunId) {
+        Flux<ArchivePart> parts = taskInstanceService.streamTaskInstances(dagId, dagRunId, null)
+            .concatMap(TaskTry::allTries)
+            .flatMapSequential(target -> prefetch(dagId, dagRunId, target), concurrency, 1)
+            .concatMap(entry -> Flux.concat(
+                Mono.just(ArchivePart.start(entryName(entry.target()))),
+                entry.content()
+                    .map(ArchivePart::content)
+                    .onErrorResume(e -> failureNote(dagId, dagRunId, entry.target(), e))), 1)
+            .doOnDiscard(ExportEntry.class, ExportEntry::release)
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+
+        return Flux.using(
+            () -> new ZipStreamWriter(compressionLevel),
+            writer -> parts
+                .mapNotNull(writer::write)
+                .concatWith(Mono.fromCallable(writer::finish)),
+            ZipStreamWriter::close);
+    }
+
+    /**
+     * Downloads a log into memory ahead of its entry, up to the lookahead buffer size
+     */
+    private Mono<ExportEntry> prefetch(String dagId, String dagRunId, TaskTry target) {
+        CachedTaskLog cached = target.mapIndex() == null
+            ? logService.lookupCachedTaskLog(dagId, dagRunId, target.taskId(), target.tryNumber())
+            : null;
+        if (cached != null) {
+            return Mono.just(new ExportEntry(target, logService.readCachedTaskLog(cached), List.of()));
+        }
+        Flux<DataBuffer> live = Flux.defer(() ->
+            logService.fetchTaskLogs(dagId, dagRunId, target.taskId(), target.tryNumber(), target.mapIndex()));
+
+        return Mono.defer(() -> {
+            List<DataBuffer> buffered = new ArrayList<>();
+            long[] size = new long[1];
+            return live
+                .doOnNext(buffer -> {
+                    synchronized (buffered) {
+                        if (size[0] == Long.MAX_VALUE) {
+                            DataBufferUtils.release(buffer);
+                            return;
+                        }
+                        buffered.add(buffer);
+                        size[0] += buffer.readableByteCount();
+                    }
+                })
+                .takeUntil(buffer -> size[0] > lookaheadBytes)
+                .then(Mono.fromSupplier(() -> {
+                    if (size[0] > lookaheadBytes) {
+                        // Too large to hold, streamed again once it is written
+                        buffered.forEach(DataBufferUtils::release);
+                        return new ExportEntry(target, live, List.of());
+                    }
+                    return new ExportEntry(target, Flux.fromIterable(buffered), buffered);
+                }))
+                .onErrorResume(e -> {
+                    buffered.forEach(DataBufferUtils::release);
+                    return Mono.just(new ExportEntry(target, Flux.error(e), List.of()));
+                })
+                .doOnCancel(() -> {
+                    // Marks the lookahead cancelled, so a buffer arriving late is released right away
+                    synchronized (buffered) {
+                        buffered.forEach(DataBufferUtils::release);
+                        buffered.clear();
+                        size[0] = Long.MAX_VALUE;
+                    }
+                });
+        });
+    }
+
+    private static Flux<ArchivePart> failureNote(String dagId, String dagRunId, TaskTry target, Throwable e) {
+        log.warn("Failed to export log of {}/{}/{}: {}", dagId, dagRunId, target, e.getMessage());
+        return Flux.just(ArchivePart.content(DefaultDataBufferFactory.sharedInstance.wrap(
+            ("\n*** Failed to read log: " + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static String entryName(TaskTry target) {
+        String taskDirectory = target.taskId().replace("..", "_").replace('\\', '_').replace('/', '_');
+        return target.mapIndex() != null
+            ? taskDirectory + "/map_index=" + target.mapIndex() + "/attempt=" + target.tryNumber() + ".log"
+            : taskDirectory + "/attempt=" + target.tryNumber() + ".log";
+    }
+
+    /**
+     * A try and its log, ready to be written into the archive
+     *
+     * @param buffered the downloaded buffers the content replays, released when the entry is discarded
+     */
+    private record ExportEntry(TaskTry target, Flux<DataBuffer> content, List<DataBuffer> buffered) {
+
+        void release() {
+            buffered.forEach(DataBufferUtils::release);
+        }
+    }
+
+    /**
+     * Either the start of a new archive entry or content of the current entry
+     */
+    private record ArchivePart(String entryName, DataBuffer content) {
+
+        static ArchivePart start(String entryName) {
+            return new ArchivePart(entryName, null);
+        }
+
+        static ArchivePart content(DataBuffer content) {
+            return new ArchivePart(null, content);
+        }
+    }
+
+    /**
+     * Feeds parts into a ZipOutputStream and hands out the compressed bytes produced by each write
+     */
+    private static final class ZipStreamWriter {
+        private final DrainableOutputStream output = new DrainableOutputStream();
+        private final ZipOutputStream zip = new ZipOutputStream(output);
+        private final byte[] copyBuffer = new byte[64 * 1024];
+        private boolean entryOpen;
+
+        ZipStreamWriter(int compressionLevel) {
+            zip.setLevel(compressionLevel);
+        }
+
+        DataBuffer write(ArchivePart part) {
+            try {
+                if (part.entryName() != null) {
+                    if (entryOpen) {
+                        zip.closeEntry();
+                    }
+                    zip.putNextEntry(new ZipEntry(part.entryName()));
+                    entryOpen = true;
+                } else {
+                    writeContent(part.content());
+                }
+                return output.drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        DataBuffer finish() throws IOException {
+            if (entryOpen) {
+                zip.closeEntry();
+                entryOpen = false;
+            }
+            zip.finish();
+            DataBuffer rest = output.drain();
+            return rest != null ? rest : DefaultDataBufferFactory.sharedInstance.allocateBuffer(0);
+        }
+
+        void close() {
+            try {
+                zip.close();
+            } catch (IOException ignored) {
+                // Nothing left to write to
+            }
+        }
+
+        private void writeContent(DataBuffer content) throws IOException {
+            try (DataBuffer.ByteBufferIterator iterator = content.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer bytes = iterator.next();
+                    while (bytes.hasRemaining()) {
+                        int length = Math.min(bytes.remaining(), copyBuffer.length);
+                        bytes.get(copyBuffer, 0, length);
+                        zip.write(copyBuffer, 0, length);
+                    }
+                }
+            } finally {
+                DataBufferUtils.release(content);
+            }
+        }
+    }
+
+    private static final class DrainableOutputStream extends ByteArrayOutputStream {
+
+        /**
+         * Returns the bytes written since the last drain, null when there are none
+         */
+        DataBuffer drain() {
+            if (count == 0) {
+                return null;
+            }
+            DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.wrap(toByteArray());
+            reset();
+            return buffer;
+        }
+    }
+}
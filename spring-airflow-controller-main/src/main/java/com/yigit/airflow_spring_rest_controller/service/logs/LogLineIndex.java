@@ -0,0 +1,229 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Line-offset index of a cached log.
+ *
+ * Holds the byte offset of every interval-th line and the positions of ERROR and WARNING lines,
+ * so a range of lines or the next error can be located without scanning the log.
+ * The index is built incrementally from the raw bytes while the log is written to the cache.
+ */
+public final class LogLineIndex {
+
+    public static final byte LEVEL_WARNING = 1;
+    public static final byte LEVEL_ERROR = 2;
+
+    private final int interval;
+    private final long lineCount;
+    private final long[] checkpoints;
+    private final long[] markerLines;
+    private final long[] markerOffsets;
+    private final byte[] markerLevels;
+
+    private LogLineIndex(int interval, long lineCount, long[] checkpoints,
+                         long[] markerLines, long[] markerOffsets, byte[] markerLevels) {
+        this.interval = interval;
+        this.lineCount = lineCount;
+        this.checkpoints = checkpoints;
+        this.markerLines = markerLines;
+        this.markerOffsets = markerOffsets;
+        this.markerLevels = markerLevels;
+    }
+
+    /**
+     * A line with a log level of interest
+     */
+    public record Marker(long lineNumber, long offset, byte level) {
+    }
+
+    /**
+     * Position to start reading from to reach the given line
+     */
+    public record Checkpoint(long lineNumber, long offset) {
+    }
+
+    public long lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the closest checkpoint at or before the given 1-based line
+     */
+    public Checkpoint checkpointFor(long lineNumber) {
+        int index = (int) Math.min((Math.max(lineNumber, 1) - 1) / interval, checkpoints.length - 1);
+        return new Checkpoint((long) index * interval + 1, checkpoints[index]);
+    }
+
+    /**
+     * Returns the first marker after the given line with at least the given level
+     *
+     * @return Marker the marker, null when there is none
+     */
+    public Marker nextMarker(long afterLine, byte minLevel) {
+        int index = Arrays.binarySearch(markerLines, afterLine);
+        index = index >= 0 ? index + 1 : -index - 1;
+        for (; index < markerLines.length; index++) {
+            if (markerLevels[index] >= minLevel) {
+                return new Marker(markerLines[index], markerOffsets[index], markerLevels[index]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the last marker before the given line with at least the given level
+     *
+     * @return Marker the marker, null when there is none
+     */
+    public Marker previousMarker(long beforeLine, byte minLevel) {
+        int index = Arrays.binarySearch(markerLines, beforeLine);
+        index = index >= 0 ? index - 1 : -index - 2;
+        for (; index >= 0; index--) {
+            if (markerLevels[index] >= minLevel) {
+                return new Marker(markerLines[index], markerOffsets[index], markerLevels[index]);
+            }
+        }
+        return null;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(interval);
+        out.writeLong(lineCount);
+        out.writeInt(checkpoints.length);
+        for (long checkpoint : checkpoints) {
+            out.writeLong(checkpoint);
+        }
+        out.writeInt(markerLines.length);
+        for (int i = 0; i < markerLines.length; i++) {
+            out.writeLong(markerLines[i]);
+            out.writeLong(markerOffsets[i]);
+            out.writeByte(markerLevels[i]);
+        }
+    }
+
+    static LogLineIndex read(DataInput in) throws IOException {
+        int interval = in.readInt();
+        long lineCount = in.readLong();
+        long[] checkpoints = new long[in.readInt()];
+        for (int i = 0; i < checkpoints.length; i++) {
+            checkpoints[i] = in.readLong();
+        }
+        int markers = in.readInt();
+        long[] markerLines = new long[markers];
+        long[] markerOffsets = new long[markers];
+        byte[] markerLevels = new byte[markers];
+        for (int i = 0; i < markers; i++) {
+            markerLines[i] = in.readLong();
+            markerOffsets[i] = in.readLong();
+            markerLevels[i] = in.readByte();
+        }
+        return new LogLineIndex(interval, lineCount, checkpoints, markerLines, markerOffsets, markerLevels);
+    }
+
+    /**
+     * Builds the index from the raw log bytes as they are written
+     */
+    static final class Builder {
+        // Level names as written by Airflow's log format: "[time] {file.py:1} ERROR - message"
+        private static final Pattern ERROR = Pattern.compile("\\b(ERROR|CRITICAL|FATAL)\\b");
+        private static final Pattern WARNING = Pattern.compile("\\bWARN(ING)?\\b");
+        private static final int LEVEL_PREFIX_LENGTH = 256;
+
+        private final int interval;
+        private final int maxMarkers;
+
+        private long[] checkpoints = new long[16];
+        private int checkpointCount;
+        private long[] markerLines = new long[16];
+        private long[] markerOffsets = new long[16];
+        private byte[] markerLevels = new byte[16];
+        private int markerCount;
+
+        private final byte[] prefix = new byte[LEVEL_PREFIX_LENGTH];
+        private int prefixLength;
+        private long offset;
+        private long lineStart;
+        private long lineNumber = 1;
+
+        Builder(int interval, int maxMarkers) {
+            this.interval = interval;
+            this.maxMarkers = maxMarkers;
+            addCheckpoint(0);
+        }
+
+        void accept(ByteBuffer bytes) {
+            for (int i = bytes.position(); i < bytes.limit(); i++) {
+                byte b = bytes.get(i);
+                offset++;
+                if (b == '\n') {
+                    endLine();
+                } else if (prefixLength < LEVEL_PREFIX_LENGTH) {
+                    prefix[prefixLength++] = b;
+                }
+            }
+        }
+
+        LogLineIndex build() {
+            long lineCount = lineNumber - 1;
+            if (offset > lineStart) {
+                endLine();
+                lineCount = lineNumber - 1;
+            }
+            return new LogLineIndex(interval, lineCount,
+                Arrays.copyOf(checkpoints, checkpointCount),
+                Arrays.copyOf(markerLines, markerCount),
+                Arrays.copyOf(markerOffsets, markerCount),
+                Arrays.copyOf(markerLevels, markerCount));
+        }
+
+        private void endLine() {
+            byte level = level();
+            if (level != 0 && markerCount < maxMarkers) {
+                if (markerCount == markerLines.length) {
+                    markerLines = Arrays.copyOf(markerLines, markerCount * 2);
+                    markerOffsets = Arrays.copyOf(markerOffsets, markerCount * 2);
+                    markerLevels = Arrays.copyOf(markerLevels, markerCount * 2);
+                }
+                markerLines[markerCount] = lineNumber;
+                markerOffsets[markerCount] = lineStart;
+                markerLevels[markerCount] = level;
+                markerCount++;
+            }
+
+            lineNumber++;
+            lineStart = offset;
+            prefixLength = 0;
+            if ((lineNumber - 1) % interval == 0) {
+                addCheckpoint(lineStart);
+            }
+        }
+
+        private byte level() {
+            if (prefixLength == 0) {
+                return 0;
+            }
+            String text = new String(prefix, 0, prefixLength, StandardCharsets.ISO_8859_1);
+            if (ERROR.matcher(text).find()) {
+                return LEVEL_ERROR;
+            }
+            if (WARNING.matcher(text).find()) {
+                return LEVEL_WARNING;
+            }
+            return 0;
+        }
+
+        private void addCheckpoint(long checkpointOffset) {
+            if (checkpointCount == checkpoints.length) {
+                checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+            }
+            checkpoints[checkpointCount++] = checkpointOffset;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a raw log stream into lines with their line numbers and byte offsets.
+ *
+ * Lines may span any number of buffers. Lines longer than the maximum line length are truncated,
+ * so memory use is bounded by that length regardless of the log content.
+ */
+public final class LogLineSplitter {
+
+    /**
+     * A line of a log without its line terminator
+     *
+     * @param number 1-based line number
+     * @param offset byte offset of the first byte of the line in the raw log
+     * @param text   the line, possibly truncated
+     */
+    public record LogLine(long number, long offset, String text) {
+    }
+
+    private final int maxLineLength;
+    private byte[] line = new byte[256];
+    private int length;
+    private long offset;
+    private long lineStart;
+    private long lineNumber;
+
+    private LogLineSplitter(int maxLineLength, long firstLineNumber, long firstOffset) {
+        this.maxLineLength = maxLineLength;
+        this.lineNumber = firstLineNumber;
+        this.offset = firstOffset;
+        this.lineStart = firstOffset;
+    }
+
+    /**
+     * Splits the content into lines. The buffers are released once they have been read.
+     *
+     * @param content       the raw log
+     * @param maxLineLength maximum number of bytes kept per line
+     * @return Flux<LogLine> the lines in order
+     */
+    public static Flux<LogLine> split(Flux<DataBuffer> content, int maxLineLength) {
+        return split(content, maxLineLength, 1, 0);
+    }
+
+    /**
+     * Splits content that starts at the beginning of a known line of the log
+     *
+     * @param firstLineNumber line number of the first line of the content
+     * @param firstOffset     byte offset of the content in the log
+     */
+    public static Flux<LogLine> split(Flux<DataBuffer> content, int maxLineLength, long firstLineNumber, long firstOffset) {
+        return Flux.defer(() -> {
+            LogLineSplitter splitter = new LogLineSplitter(maxLineLength, firstLineNumber, firstOffset);
+            return content
+                .concatMapIterable(splitter::accept)
+                .concatWith(Flux.defer(() -> Flux.fromIterable(splitter.finish())));
+        });
+    }
+
+    private List<LogLine> accept(DataBuffer buffer) {
+        List<LogLine> lines = new ArrayList<>();
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer bytes = iterator.next();
+                while (bytes.hasRemaining()) {
+                    byte b = bytes.get();
+                    offset++;
+                    if (b == '\n') {
+                        lines.add(completeLine());
+                    } else if (length < maxLineLength) {
+                        if (length == line.length) {
+                            line = Arrays.copyOf(line, Math.min(line.length * 2, maxLineLength));
+                        }
+                        line[length++] = b;
+                    }
+                }
+            }
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+        return lines;
+    }
+
+    private List<LogLine> finish() {
+        return offset > lineStart ? List.of(completeLine()) : List.of();
+    }
+
+    private LogLine completeLine() {
+        int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        LogLine completed = new LogLine(lineNumber++, lineStart, new String(line, 0, end, StandardCharsets.UTF_8));
+        lineStart = offset;
+        length = 0;
+        return completed;
+    }
+}
@@ -0,0 +1,106 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import com.yigit.airflow_spring_rest_controller.dto.log.LogLineMarker;
+import com.yigit.airflow_spring_rest_controller.dto.log.LogLinePage;
+import com.yigit.airflow_spring_rest_controller.dto.log.LogPageLine;
+import com.yigit.airflow_spring_rest_controller.service.LogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Random access to the lines of finished task logs.
+ *
+ * Uses the line-offset index of the task log cache to seek to the checkpoint before the requested line,
+ * so only the segment holding it and the lines up to the end of the page are decompressed.
+ */
+@Service
+public class LogPageService {
+
+    private final LogService logService;
+    private final TaskLogCache taskLogCache;
+    private final int maxLines;
+    private final int maxLineLength;
+
+    @Autowired
+    public LogPageService(
+            LogService logService,
+            TaskLogCache taskLogCache,
+            @Value("${gateway.logs.paging.max-lines:10000}") int maxLines,
+            @Value("${gateway.logs.paging.max-line-length:16KB}") DataSize maxLineLength) {
+        this.logService = logService;
+        this.taskLogCache = taskLogCache;
+        this.maxLines = maxLines;
+        this.maxLineLength = (int) maxLineLength.toBytes();
+    }
+
+    /**
+     * Returns count lines of the log starting at the 1-based line fromLine
+     */
+    public Mono<LogLinePage> getLines(String dagId, String dagRunId, String taskId, int tryNumber,
+                                      long fromLine, int count) {
+        long from = Math.max(fromLine, 1);
+        int limit = Math.max(0, Math.min(count, maxLines));
+
+        return cachedLog(dagId, dagRunId, taskId, tryNumber).flatMap(cached -> {
+            LogLineIndex.Checkpoint checkpoint = cached.lineIndex().checkpointFor(from);
+            return LogLineSplitter.split(taskLogCache.read(cached, checkpoint.offset()), maxLineLength,
+                    checkpoint.lineNumber(), checkpoint.offset())
+                .skip(from - checkpoint.lineNumber())
+                .take(limit)
+                .map(line -> new LogPageLine(line.number(), line.offset(), line.text()))
+                .collectList()
+                .map(lines -> {
+                    LogLinePage page = new LogLinePage();
+                    page.setTryNumber(tryNumber);
+                    page.setFromLine(from);
+                    page.setTotalLines(cached.lineIndex().lineCount());
+                    page.setLines(lines);
+                    return page;
+                });
+        });
+    }
+
+    /**
+     * Finds the next (or previous) line with a log level of at least the given level
+     *
+     * @param fromLine  the search starts after (or before) this line
+     * @param level     "error" or "warning"
+     * @param backwards whether to search towards the beginning of the log
+     */
+    public Mono<LogLineMarker> findMarker(String dagId, String dagRunId, String taskId, int tryNumber,
+                                          long fromLine, String level, boolean backwards) {
+        byte minLevel = switch (level == null ? "error" : level.toLowerCase()) {
+            case "error" -> LogLineIndex.LEVEL_ERROR;
+            case "warning" -> LogLineIndex.LEVEL_WARNING;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown log level: " + level);
+        };
+
+        return cachedLog(dagId, dagRunId, taskId, tryNumber).flatMap(cached -> {
+            LogLineIndex index = cached.lineIndex();
+            LogLineIndex.Marker marker = backwards
+                ? index.previousMarker(fromLine, minLevel)
+                : index.nextMarker(fromLine, minLevel);
+            if (marker == null) {
+                return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No " + level + " line " + (backwards ? "before" : "after") + " line " + fromLine));
+            }
+            LogLineMarker result = new LogLineMarker();
+            result.setLineNumber(marker.lineNumber());
+            result.setOffset(marker.offset());
+            result.setLevel(marker.level() == LogLineIndex.LEVEL_ERROR ? "error" : "warning");
+            result.setTotalLines(index.lineCount());
+            return Mono.just(result);
+        });
+    }
+
+    private Mono<CachedTaskLog> cachedLog(String dagId, String dagRunId, String taskId, int tryNumber) {
+        return logService.getCachedTaskLog(dagId, dagRunId, taskId, tryNumber)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                "Line access is only available for finished task tries")));
+    }
+}
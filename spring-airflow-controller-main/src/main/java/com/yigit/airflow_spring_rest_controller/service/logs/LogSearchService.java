@@ -0,0 +1,233 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import com.yigit.airflow_spring_rest_controller.dto.log.LogSearchMatch;
+import com.yigit.airflow_spring_rest_controller.exception.AirflowResourceNotFoundException;
+import com.yigit.airflow_spring_rest_controller.service.LogService;
+import com.yigit.airflow_spring_rest_controller.service.TaskInstanceService;
+import com.yigit.airflow_spring_rest_controller.service.logs.LogLineSplitter.LogLine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Streaming search over task logs.
+ *
+ * Logs are scanned line by line as they are read, only matching lines and their context are kept.
+ * The scan stops as soon as the requested number of matches has been found, which also cancels the
+ * remaining log downloads. Searches over several tries or tasks scan the logs in parallel.
+ *
+ * Patterns are user supplied, so logs are scanned on the bounded elastic scheduler rather than on the
+ * event loop, and a search is aborted when its pattern takes longer than the configured time on a line,
+ * which bounds catastrophic backtracking.
+ */
+@Service
+public class LogSearchService {
+
+    private final LogService logService;
+    private final TaskInstanceService taskInstanceService;
+    private final int maxLineLength;
+    private final int maxContextLines;
+    private final int maxMatchesLimit;
+    private final int concurrency;
+    private final long maxLineMatchNanos;
+
+    @Autowired
+    public LogSearchService(
+            LogService logService,
+            TaskInstanceService taskInstanceService,
+            @Value("${gateway.logs.search.max-line-length:16KB}") DataSize maxLineLength,
+            @Value("${gateway.logs.search.max-context-lines:20}") int maxContextLines,
+            @Value("${gateway.logs.search.max-matches:10000}") int maxMatchesLimit,
+            @Value("${gateway.logs.search.concurrency:4}") int concurrency,
+            @Value("${gateway.logs.search.max-line-match-time:100ms}") Duration maxLineMatchTime) {
+        this.logService = logService;
+        this.taskInstanceService = taskInstanceService;
+        this.maxLineLength = (int) maxLineLength.toBytes();
+        this.maxContextLines = maxContextLines;
+        this.maxMatchesLimit = maxMatchesLimit;
+        this.concurrency = concurrency;
+        this.maxLineMatchNanos = maxLineMatchTime.toNanos();
+    }
+
+    /**
+     * Search criteria
+     *
+     * @param pattern    regular expression or literal text
+     * @param regex      whether the pattern is a regular expression
+     * @param ignoreCase whether matching ignores case
+     * @param context    number of lines returned before and after every match
+     * @param maxMatches maximum number of matches returned
+     */
+    public record LogSearchQuery(String pattern, boolean regex, boolean ignoreCase, int context, int maxMatches) {
+    }
+
+    /**
+     * Searches one try of a task, or all its tries when tryNumber is null
+     */
+    public Flux<LogSearchMatch> searchTask(String dagId, String dagRunId, String taskId, Integer tryNumber,
+                                           LogSearchQuery query) {
+        Matcher matcher = compile(query);
+        Flux<TaskTry> targets = tryNumber != null
+            ? Flux.just(new TaskTry(taskId, null, tryNumber))
+            : taskInstanceService.getTaskInstance(dagId, dagRunId, taskId).flatMapMany(TaskTry::allTries);
+        return search(dagId, dagRunId, targets, matcher);
+    }
+
+    /**
+     * Searches all tries of all tasks of a DAG run
+     */
+    public Flux<LogSearchMatch> searchDagRun(String dagId, String dagRunId, LogSearchQuery query) {
+        Matcher matcher = compile(query);
+        Flux<TaskTry> targets = taskInstanceService.streamTaskInstances(dagId, dagRunId, null)
+            .concatMap(TaskTry::allTries);
+        return search(dagId, dagRunId, targets, matcher);
+    }
+
+    private Flux<LogSearchMatch> search(String dagId, String dagRunId, Flux<TaskTry> targets, Matcher matcher) {
+        return targets
+            .flatMap(target -> searchTry(dagId, dagRunId, target, matcher), concurrency)
+            .take(matcher.maxMatches());
+    }
+
+    private Flux<LogSearchMatch> searchTry(String dagId, String dagRunId, TaskTry target, Matcher matcher) {
+        Flux<LogLine> lines = LogLineSplitter.split(
+            logService.streamTaskLogs(dagId, dagRunId, target.taskId(), target.tryNumber(), true, null, target.mapIndex())
+                .publishOn(Schedulers.boundedElastic(), 4)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release),
+            maxLineLength);
+        return scan(lines, matcher, line -> {
+                LogSearchMatch match = new LogSearchMatch();
+                match.setDagId(dagId);
+                match.setDagRunId(dagRunId);
+                match.setTaskId(target.taskId());
+                match.setMapIndex(target.mapIndex());
+                match.setTryNumber(target.tryNumber());
+                match.setLineNumber(line.number());
+                match.setOffset(line.offset());
+                match.setLine(line.text());
+                return match;
+            })
+            .take(matcher.maxMatches())
+            // A try without a log is not an error for the search
+            .onErrorResume(AirflowResourceNotFoundException.class, e -> Flux.empty());
+    }
+
+    /**
+     * Emits the matching lines of a log, each with up to context lines before and after it.
+     * Matches wait for their following context lines, at most context + 1 matches are pending at a time.
+     */
+    private static Flux<LogSearchMatch> scan(Flux<LogLine> lines, Matcher matcher,
+                                             Function<LogLine, LogSearchMatch> toMatch) {
+        int context = matcher.context();
+        return Flux.defer(() -> {
+            ArrayDeque<String> before = new ArrayDeque<>(context + 1);
+            List<LogSearchMatch> pending = new ArrayList<>();
+
+            return lines
+                .concatMapIterable(line -> {
+                    List<LogSearchMatch> completed = new ArrayList<>(1);
+                    Iterator<LogSearchMatch> iterator = pending.iterator();
+                    while (iterator.hasNext()) {
+                        LogSearchMatch match = iterator.next();
+                        match.getAfter().add(line.text());
+                        if (match.getAfter().size() == context) {
+                            completed.add(match);
+                            iterator.remove();
+                        }
+                    }
+
+                    if (matcher.matches(line.text())) {
+                        LogSearchMatch match = toMatch.apply(line);
+                        match.setBefore(new ArrayList<>(before));
+                        match.setAfter(new ArrayList<>(context));
+                        if (context == 0) {
+                            completed.add(match);
+                        } else {
+                            pending.add(match);
+                        }
+                    }
+
+                    if (context > 0) {
+                        before.addLast(line.text());
+                        if (before.size() > context) {
+                            before.removeFirst();
+                        }
+                    }
+                    return completed;
+                })
+                .concatWith(Flux.defer(() -> Flux.fromIterable(pending)));
+        });
+    }
+
+    private Matcher compile(LogSearchQuery query) {
+        if (query.pattern() == null || query.pattern().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search pattern must not be empty");
+        }
+        int flags = query.ignoreCase() ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+        try {
+            Pattern pattern = query.regex()
+                ? Pattern.compile(query.pattern(), flags)
+                : Pattern.compile(query.pattern(), flags | Pattern.LITERAL);
+            return new Matcher(
+                pattern,
+                Math.max(0, Math.min(query.context(), maxContextLines)),
+                Math.max(1, Math.min(query.maxMatches(), maxMatchesLimit)),
+                maxLineMatchNanos);
+        } catch (PatternSyntaxException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid search pattern: " + e.getDescription());
+        }
+    }
+
+    private record Matcher(Pattern pattern, int context, int maxMatches, long maxLineMatchNanos) {
+
+        boolean matches(String line) {
+            return pattern.matcher(new DeadlineCharSequence(line, System.nanoTime() + maxLineMatchNanos)).find();
+        }
+    }
+
+    /**
+     * Text that fails reads after a deadline, the regex engine reads the text on every backtracking step
+     */
+    private record DeadlineCharSequence(String text, long deadline) implements CharSequence {
+
+        @Override
+        public char charAt(int index) {
+            if (System.nanoTime() > deadline) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search pattern is too expensive, simplify it or search for literal text");
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new DeadlineCharSequence(text.substring(start, end), deadline);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
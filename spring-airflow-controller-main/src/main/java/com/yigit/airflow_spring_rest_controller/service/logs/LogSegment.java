@@ -0,0 +1,7 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+/**
+ * Location of one gzip member of a cached log, both in the compressed file and in the raw log
+ */
+public record LogSegment(long compressedOffset, int compressedLength, long rawOffset, int rawLength) {
+}
@@ -0,0 +1,122 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a log as a sequence of independently compressed gzip members ("segments").
+ *
+ * The file as a whole is a valid multi-member gzip stream, and every segment can be
+ * decompressed on its own starting at its offset, which allows reading a part of a log
+ * without inflating everything before it. A line-offset index is built from the same bytes.
+ */
+class LogSegmentWriter implements Closeable {
+
+    private final CountingOutputStream file;
+    private final int segmentSize;
+    private final byte[] copyBuffer = new byte[64 * 1024];
+    private final List<LogSegment> segments = new ArrayList<>();
+    private final LogLineIndex.Builder lineIndex;
+
+    private GZIPOutputStream segment;
+    private long segmentStart;
+    private long rawLength;
+    private int segmentRawLength;
+
+    LogSegmentWriter(Path path, int segmentSize, int lineIndexInterval, int maxLineMarkers) throws IOException {
+        this.file = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+        this.segmentSize = segmentSize;
+        this.lineIndex = new LogLineIndex.Builder(lineIndexInterval, maxLineMarkers);
+    }
+
+    void write(DataBuffer buffer) throws IOException {
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer bytes = iterator.next();
+                lineIndex.accept(bytes);
+                write(bytes);
+            }
+        }
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            if (segment == null) {
+                segmentStart = file.count;
+                segment = new GZIPOutputStream(file, 64 * 1024);
+            }
+            int length = Math.min(Math.min(bytes.remaining(), copyBuffer.length), segmentSize - segmentRawLength);
+            bytes.get(copyBuffer, 0, length);
+            segment.write(copyBuffer, 0, length);
+            segmentRawLength += length;
+            if (segmentRawLength == segmentSize) {
+                finishSegment();
+            }
+        }
+    }
+
+    /**
+     * Completes the last segment and flushes the file
+     *
+     * @return List<LogSegment> the segment table
+     */
+    List<LogSegment> finish() throws IOException {
+        if (segment != null) {
+            finishSegment();
+        }
+        file.flush();
+        return segments;
+    }
+
+    long rawLength() {
+        return rawLength;
+    }
+
+    LogLineIndex lineIndex() {
+        return lineIndex.build();
+    }
+
+    private void finishSegment() throws IOException {
+        segment.finish();
+        segments.add(new LogSegment(segmentStart, (int) (file.count - segmentStart), rawLength, segmentRawLength));
+        rawLength += segmentRawLength;
+        segmentRawLength = 0;
+        segment = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import com.yigit.airflow_spring_rest_controller.dto.log.TaskLogChunk;
+import com.yigit.airflow_spring_rest_controller.dto.task.TaskInstance;
+import com.yigit.airflow_spring_rest_controller.exception.AirflowResourceNotFoundException;
+import com.yigit.airflow_spring_rest_controller.service.LogService;
+import com.yigit.airflow_spring_rest_controller.service.TaskInstanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live tail of task logs over Server-Sent Events.
+ *
+ * There is one upstream poller per (dag, run, task, try), shared by all viewers of that log.
+ * The poller follows Airflow's continuation token so every poll only transfers newly appended content.
+ * It stops when the try has finished and its remaining output was read, or when the last viewer disconnects.
+ * Viewers joining a running tail get the chunks read so far replayed first.
+ */
+@Service
+public class LogTailService {
+    private static final Logger log = LoggerFactory.getLogger(LogTailService.class);
+
+    public static final String EVENT_LOG = "log";
+    public static final String EVENT_END = "end";
+    public static final String EVENT_ERROR = "error";
+
+    private final LogService logService;
+    private final TaskInstanceService taskInstanceService;
+    private final Duration pollInterval;
+    private final Duration heartbeatInterval;
+    private final int historyChunks;
+
+    private final Map<TailKey, Flux<ServerSentEvent<String>>> tails = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LogTailService(
+            LogService logService,
+            TaskInstanceService taskInstanceService,
+            @Value("${gateway.logs.tail.poll-interval:2s}") Duration pollInterval,
+            @Value("${gateway.logs.tail.heartbeat-interval:15s}") Duration heartbeatInterval,
+            @Value("${gateway.logs.tail.history-chunks:1000}") int historyChunks) {
+        this.logService = logService;
+        this.taskInstanceService = taskInstanceService;
+        this.pollInterval = pollInterval;
+        this.heartbeatInterval = heartbeatInterval;
+        this.historyChunks = historyChunks;
+    }
+
+    /**
+     * Streams the log of a task try as it grows.
+     * Emits "log" events with appended content, then a single "end" event carrying the final task state,
+     * or an "error" event when the log cannot be read.
+     * Fails with a not found error when the try will never run because the task ended before it.
+     */
+    public Flux<ServerSentEvent<String>> tail(String dagId, String dagRunId, String taskId, int tryNumber) {
+        TailKey key = new TailKey(dagId, dagRunId, taskId, tryNumber);
+        Flux<ServerSentEvent<String>> heartbeat = Flux.interval(heartbeatInterval)
+            .map(tick -> ServerSentEvent.<String>builder().comment("keep-alive").build());
+
+        if (tryNumber < 1) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Try number must be positive"));
+        }
+        // A try that will never run has no log to wait for
+        return taskInstanceService.getTaskInstance(dagId, dagRunId, taskId)
+            .filter(taskInstance -> taskInstance.isTryNeverStarted(tryNumber))
+            .flatMap(taskInstance -> Mono.<ServerSentEvent<String>>error(tryNotFound(key, taskInstance)))
+            .concatWith(Flux.defer(() -> tails.computeIfAbsent(key, this::share)))
+            .mergeWith(heartbeat)
+            .takeUntil(event -> EVENT_END.equals(event.event()) || EVENT_ERROR.equals(event.event()));
+    }
+
+    public int activeTails() {
+        return tails.size();
+    }
+
+    private Flux<ServerSentEvent<String>> share(TailKey key) {
+        AtomicReference<Flux<ServerSentEvent<String>>> self = new AtomicReference<>();
+        Flux<ServerSentEvent<String>> shared = Flux.defer(() -> poll(key))
+            .doOnSubscribe(subscription -> log.debug("Starting log tail {}", key))
+            .doFinally(signal -> {
+                log.debug("Log tail {} stopped: {}", key, signal);
+                tails.remove(key, self.get());
+            })
+            .replay(historyChunks)
+            .refCount(1);
+        self.set(shared);
+        return shared;
+    }
+
+    private Flux<ServerSentEvent<String>> poll(TailKey key) {
+        AtomicReference<String> token = new AtomicReference<>();
+        return Flux.interval(Duration.ZERO, pollInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> pollOnce(key, token), 1)
+            .takeUntil(update -> update.finalState() != null)
+            .concatMapIterable(TailUpdate::toEvents)
+            .onErrorResume(e -> {
+                log.warn("Log tail {} failed: {}", key, e.getMessage());
+                return Mono.just(ServerSentEvent.<String>builder()
+                    .event(EVENT_ERROR)
+                    .data(e.getMessage())
+                    .build());
+            });
+    }
+
+    /**
+     * Reads the next chunk, one Airflow request per poll while the log grows.
+     * The task state is only read once a chunk comes back empty. When the try has finished by then,
+     * the log is read a last time, as output may have been appended between the two reads.
+     */
+    private Mono<TailUpdate> pollOnce(TailKey key, AtomicReference<String> token) {
+        return readChunk(key, token)
+            .flatMap(content -> !content.isEmpty()
+                ? Mono.just(new TailUpdate(content, null))
+                : taskInstanceService.getTaskInstance(key.dagId(), key.dagRunId(), key.taskId())
+                    .flatMap(taskInstance -> {
+                        if (taskInstance.isTryNeverStarted(key.tryNumber())) {
+                            return Mono.error(tryNotFound(key, taskInstance));
+                        }
+                        return taskInstance.isTryFinished(key.tryNumber())
+                            ? readChunk(key, token).map(rest -> new TailUpdate(rest, String.valueOf(taskInstance.getState())))
+                            : Mono.just(new TailUpdate(content, null));
+                    }))
+            .retryWhen(Retry.backoff(3, pollInterval)
+                .filter(e -> !(e instanceof AirflowResourceNotFoundException))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static AirflowResourceNotFoundException tryNotFound(TailKey key, TaskInstance taskInstance) {
+        return new AirflowResourceNotFoundException(String.format(
+            "Try %d of task %s does not exist, the task ended in state %s after try %d",
+            key.tryNumber(), key.taskId(), taskInstance.getState(), taskInstance.getTryNumber()));
+    }
+
+    private Mono<String> readChunk(TailKey key, AtomicReference<String> token) {
+        return logService.getTaskLogChunk(key.dagId(), key.dagRunId(), key.taskId(), key.tryNumber(), token.get())
+            .map(chunk -> advance(token, chunk));
+    }
+
+    private static String advance(AtomicReference<String> token, TaskLogChunk chunk) {
+        if (chunk.getContinuationToken() != null) {
+            token.set(chunk.getContinuationToken());
+        }
+        return chunk.getContent() != null ? chunk.getContent() : "";
+    }
+
+    private record TailKey(String dagId, String dagRunId, String taskId, int tryNumber) {
+    }
+
+    private record TailUpdate(String content, String finalState) {
+
+        List<ServerSentEvent<String>> toEvents() {
+            List<ServerSentEvent<String>> events = new ArrayList<>(2);
+            if (content != null && !content.isEmpty()) {
+                events.add(ServerSentEvent.<String>builder().event(EVENT_LOG).data(content).build());
+            }
+            if (finalState != null) {
+                events.add(ServerSentEvent.<String>builder().event(EVENT_END).data(finalState).build());
+            }
+            return events;
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import com.yigit.airflow_spring_rest_controller.dto.metrics.TaskLogCacheStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * On-disk cache for the logs of finished task tries.
+ *
+ * The log of a finished try never changes, so it is fetched from Airflow once and kept locally.
+ * Every log is stored as a data file of gzip compressed segments plus an index file holding the
+ * segment table and the line-offset index; the index is written last and marks the entry as complete.
+ * Reads decompress the segments from a memory mapping of the data file, starting at any segment.
+ *
+ * The cache is bounded by its size on disk, least recently read logs are evicted first.
+ * Entries older than the retention are removed periodically. Entries survive restarts.
+ */
+@Component
+public class TaskLogCache {
+    private static final Logger log = LoggerFactory.getLogger(TaskLogCache.class);
+
+    private static final int INDEX_MAGIC = 0x4C4F4743;
+    private static final int INDEX_VERSION = 2;
+    private static final String DATA_SUFFIX = ".log.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMP_MARKER = ".tmp-";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+    private final Duration retention;
+    private final int segmentSize;
+    private final int lineIndexInterval;
+    private final int maxLineMarkers;
+
+    // Access-ordered map, guarded by its own monitor
+    private final LinkedHashMap<TaskLogKey, CachedTaskLog> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<TaskLogKey, Mono<CachedTaskLog>> inFlight = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder storeFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public TaskLogCache(
+            @Value("${gateway.logs.cache.enabled:true}") boolean enabled,
+            @Value("${gateway.logs.cache.directory:${java.io.tmpdir}/airflow-gateway/task-logs}") String directory,
+            @Value("${gateway.logs.cache.max-size:2GB}") DataSize maxSize,
+            @Value("${gateway.logs.cache.retention:7d}") Duration retention,
+            @Value("${gateway.logs.cache.segment-size:1MB}") DataSize segmentSize,
+            @Value("${gateway.logs.cache.line-index-interval:1000}") int lineIndexInterval,
+            @Value("${gateway.logs.cache.max-line-markers:100000}") int maxLineMarkers) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxSize.toBytes();
+        this.retention = retention;
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.lineIndexInterval = lineIndexInterval;
+        this.maxLineMarkers = maxLineMarkers;
+    }
+
+    /**
+     * Restores the entries written by previous runs and removes incomplete ones
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            List<CachedTaskLog> restored = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.contains(TEMP_MARKER)) {
+                        Files.deleteIfExists(file);
+                    } else if (name.endsWith(INDEX_SUFFIX)) {
+                        CachedTaskLog entry = readIndex(file);
+                        if (entry != null) {
+                            restored.add(entry);
+                        }
+                    }
+                }
+            }
+            restored.sort(Comparator.comparingLong(CachedTaskLog::createdAt));
+            synchronized (entries) {
+                restored.forEach(entry -> {
+                    entries.put(entry.key(), entry);
+                    totalBytes += entry.sizeOnDisk();
+                });
+            }
+            log.info("Task log cache at {} restored with {} entries ({} bytes)", directory, restored.size(), totalBytes);
+        } catch (IOException e) {
+            log.warn("Failed to restore the task log cache at {}: {}", directory, e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached log without loading it
+     *
+     * @return CachedTaskLog the entry, null when the log is not cached
+     */
+    public CachedTaskLog lookup(TaskLogKey key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * Serves the log from the cache. On a miss the log is read from the source into the cache first;
+     * concurrent misses of the same key share one download. If the log cannot be written to disk it is
+     * served from the source directly.
+     *
+     * @param key    the task try
+     * @param source the raw log from Airflow, must only be used for finished tries
+     * @return Flux<DataBuffer> the raw log
+     */
+    public Flux<DataBuffer> get(TaskLogKey key, Supplier<Flux<DataBuffer>> source) {
+        return getEntry(key, source)
+            .map(this::read)
+            .onErrorResume(TaskLogCache::isStorageFailure, e -> {
+                storeFailures.increment();
+                log.warn("Failed to cache the log of {}: {}", key, e.getMessage());
+                return Mono.just(source.get());
+            })
+            .flatMapMany(content -> content);
+    }
+
+    /**
+     * Returns the cache entry of the log, reading the log from the source into the cache on a miss
+     *
+     * @param key    the task try
+     * @param source the raw log from Airflow, must only be used for finished tries
+     * @return Mono<CachedTaskLog> the entry
+     */
+    public Mono<CachedTaskLog> getEntry(TaskLogKey key, Supplier<Flux<DataBuffer>> source) {
+        CachedTaskLog entry = lookup(key);
+        if (entry != null) {
+            hits.increment();
+            return Mono.just(entry);
+        }
+        misses.increment();
+        return Mono.defer(() -> load(key, source));
+    }
+
+    /**
+     * Decompressed content of a cached log
+     */
+    public Flux<DataBuffer> read(CachedTaskLog entry) {
+        return read(entry, 0);
+    }
+
+    /**
+     * Decompressed content of a cached log starting at a raw byte offset.
+     * Only the segment holding the offset and the ones after it are inflated.
+     */
+    public Flux<DataBuffer> read(CachedTaskLog entry, long fromOffset) {
+        if (entry.segments().isEmpty() || fromOffset >= entry.rawLength()) {
+            return Flux.empty();
+        }
+        int first = entry.segmentAt(fromOffset);
+        return Flux.range(first, entry.segments().size() - first)
+            .concatMap(index -> {
+                LogSegment segment = entry.segments().get(index);
+                long skip = index == first ? fromOffset - segment.rawOffset() : 0;
+                return readSegment(entry, segment, skip);
+            });
+    }
+
+    /**
+     * Removes entries older than the retention
+     */
+    @Scheduled(fixedDelayString = "${gateway.logs.cache.cleanup-interval:600000}",
+               initialDelayString = "${gateway.logs.cache.cleanup-interval:600000}")
+    public void removeExpired() {
+        if (!enabled) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        List<CachedTaskLog> expired = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<CachedTaskLog> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                CachedTaskLog entry = iterator.next();
+                if (entry.createdAt() < cutoff) {
+                    iterator.remove();
+                    totalBytes -= entry.sizeOnDisk();
+                    expired.add(entry);
+                }
+            }
+        }
+        expired.forEach(TaskLogCache::delete);
+        expirations.add(expired.size());
+        if (!expired.isEmpty()) {
+            log.info("Removed {} task logs older than {} from the cache", expired.size(), retention);
+        }
+    }
+
+    public TaskLogCacheStats stats() {
+        TaskLogCacheStats stats = new TaskLogCacheStats();
+        synchronized (entries) {
+            stats.setEntries(entries.size());
+            stats.setSizeBytes(totalBytes);
+        }
+        stats.setMaxSizeBytes(maxBytes);
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setStores(stores.sum());
+        stats.setStoreFailures(storeFailures.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setExpirations(expirations.sum());
+        return stats;
+    }
+
+    private Mono<CachedTaskLog> load(TaskLogKey key, Supplier<Flux<DataBuffer>> source) {
+        return inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<CachedTaskLog>> self = new AtomicReference<>();
+            // cache() keeps the download running when the viewer that started it goes away
+            Mono<CachedTaskLog> shared = store(k, source.get())
+                .doFinally(signal -> inFlight.remove(k, self.get()))
+                .cache();
+            self.set(shared);
+            return shared;
+        });
+    }
+
+    private Mono<CachedTaskLog> store(TaskLogKey key, Flux<DataBuffer> content) {
+        Path tempData = directory.resolve(key.fileName() + DATA_SUFFIX + TEMP_MARKER + UUID.randomUUID());
+        return Mono.using(
+            () -> new LogSegmentWriter(tempData, segmentSize, lineIndexInterval, maxLineMarkers),
+            writer -> content
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(buffer -> {
+                    try {
+                        writer.write(buffer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .then(Mono.fromCallable(() -> commit(key, writer, tempData))),
+            writer -> {
+                try {
+                    writer.close();
+                    Files.deleteIfExists(tempData);
+                } catch (IOException e) {
+                    log.debug("Failed to clean up {}: {}", tempData, e.getMessage());
+                }
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private CachedTaskLog commit(TaskLogKey key, LogSegmentWriter writer, Path tempData) throws IOException {
+        List<LogSegment> segments = writer.finish();
+        writer.close();
+        long dataSize = Files.size(tempData);
+        if (dataSize > Integer.MAX_VALUE) {
+            throw new IOException("compressed log of " + dataSize + " bytes exceeds the cacheable size");
+        }
+
+        Path dataFile = directory.resolve(key.fileName() + DATA_SUFFIX);
+        Path indexFile = directory.resolve(key.fileName() + INDEX_SUFFIX);
+        Path tempIndex = directory.resolve(key.fileName() + INDEX_SUFFIX + TEMP_MARKER + UUID.randomUUID());
+        long createdAt = System.currentTimeMillis();
+        LogLineIndex lineIndex = writer.lineIndex();
+        try {
+            writeIndex(tempIndex, key, createdAt, writer.rawLength(), segments, lineIndex);
+            Files.move(tempData, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempIndex, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempIndex);
+        }
+
+        CachedTaskLog entry = new CachedTaskLog(key, dataFile, indexFile, writer.rawLength(), segments,
+            lineIndex, createdAt, dataSize + Files.size(indexFile));
+        put(entry);
+        stores.increment();
+        log.debug("Cached the log of {}: {} bytes, {} lines in {} segments, {} bytes on disk",
+            key, entry.rawLength(), lineIndex.lineCount(), segments.size(), entry.sizeOnDisk());
+        return entry;
+    }
+
+    private void put(CachedTaskLog entry) {
+        List<CachedTaskLog> evicted = new ArrayList<>();
+        synchronized (entries) {
+            CachedTaskLog previous = entries.put(entry.key(), entry);
+            totalBytes += entry.sizeOnDisk() - (previous != null ? previous.sizeOnDisk() : 0);
+
+            Iterator<Map.Entry<TaskLogKey, CachedTaskLog>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<TaskLogKey, CachedTaskLog> candidate = eldest.next();
+                if (candidate.getKey().equals(entry.key())) {
+                    continue;
+                }
+                totalBytes -= candidate.getValue().sizeOnDisk();
+                evicted.add(candidate.getValue());
+                eldest.remove();
+            }
+        }
+        // Mappings of evicted files stay readable for reads still in progress
+        evicted.forEach(TaskLogCache::delete);
+        evictions.add(evicted.size());
+    }
+
+    private Flux<DataBuffer> readSegment(CachedTaskLog entry, LogSegment segment, long skip) {
+        return DataBufferUtils.readInputStream(
+                () -> {
+                    InputStream in = new GZIPInputStream(new ByteBufferInputStream(entry.segmentBytes(segment)), READ_BUFFER_SIZE);
+                    in.skipNBytes(skip);
+                    return in;
+                },
+                DefaultDataBufferFactory.sharedInstance,
+                READ_BUFFER_SIZE)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static void writeIndex(Path file, TaskLogKey key, long createdAt, long rawLength,
+                                   List<LogSegment> segments, LogLineIndex lineIndex) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeUTF(key.dagId());
+            out.writeUTF(key.dagRunId());
+            out.writeUTF(key.taskId());
+            out.writeInt(key.tryNumber());
+            out.writeLong(createdAt);
+            out.writeLong(rawLength);
+            out.writeInt(segments.size());
+            for (LogSegment segment : segments) {
+                out.writeLong(segment.compressedOffset());
+                out.writeInt(segment.compressedLength());
+                out.writeLong(segment.rawOffset());
+                out.writeInt(segment.rawLength());
+            }
+            lineIndex.write(out);
+        }
+    }
+
+    private CachedTaskLog readIndex(Path indexFile) {
+        String name = indexFile.getFileName().toString();
+        Path dataFile = directory.resolve(name.substring(0, name.length() - INDEX_SUFFIX.length()) + DATA_SUFFIX);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION || !Files.exists(dataFile)) {
+                throw new IOException("unknown format or missing data file");
+            }
+            TaskLogKey key = new TaskLogKey(in.readUTF(), in.readUTF(), in.readUTF(), in.readInt());
+            long createdAt = in.readLong();
+            long rawLength = in.readLong();
+            int count = in.readInt();
+            List<LogSegment> segments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                segments.add(new LogSegment(in.readLong(), in.readInt(), in.readLong(), in.readInt()));
+            }
+            LogLineIndex lineIndex = LogLineIndex.read(in);
+            return new CachedTaskLog(key, dataFile, indexFile, rawLength, segments, lineIndex, createdAt,
+                Files.size(dataFile) + Files.size(indexFile));
+        } catch (IOException e) {
+            log.warn("Dropping unreadable task log cache entry {}: {}", indexFile, e.getMessage());
+            try {
+                Files.deleteIfExists(indexFile);
+                Files.deleteIfExists(dataFile);
+            } catch (IOException ignored) {
+                // Retried on the next start
+            }
+            return null;
+        }
+    }
+
+    private static void delete(CachedTaskLog entry) {
+        try {
+            Files.deleteIfExists(entry.indexFile());
+            Files.deleteIfExists(entry.dataFile());
+        } catch (IOException e) {
+            log.warn("Failed to delete cached log of {}: {}", entry.key(), e.getMessage());
+        }
+    }
+
+    private static boolean isStorageFailure(Throwable e) {
+        return e instanceof IOException || e instanceof UncheckedIOException;
+    }
+
+    /**
+     * InputStream over a ByteBuffer, used to inflate memory-mapped segments without copying them
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int length = Math.min(len, buffer.remaining());
+            buffer.get(b, off, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Identifies the log of one task try
+ */
+public record TaskLogKey(String dagId, String dagRunId, String taskId, int tryNumber) {
+
+    /**
+     * File name safe, collision resistant name of the key
+     */
+    public String fileName() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(String.join("\u0000", dagId, dagRunId, taskId, Integer.toString(tryNumber))
+                .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return dagId + "/" + dagRunId + "/" + taskId + "/" + tryNumber;
+    }
+}
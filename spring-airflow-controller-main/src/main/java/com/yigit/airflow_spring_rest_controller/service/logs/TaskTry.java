@@ -0,0 +1,23 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import com.yigit.airflow_spring_rest_controller.dto.task.TaskInstance;
+import reactor.core.publisher.Flux;
+
+/**
+ * One try of a task instance, the unit task logs are stored in
+ *
+ * @param mapIndex map index of a mapped task, null for unmapped tasks
+ */
+record TaskTry(String taskId, Integer mapIndex, int tryNumber) {
+
+    /**
+     * Enumerates the tries of a task instance up to its current try number
+     */
+    static Flux<TaskTry> allTries(TaskInstance taskInstance) {
+        int tries = taskInstance.getTryNumber() != null ? Math.max(taskInstance.getTryNumber(), 1) : 1;
+        Integer mapIndex = taskInstance.getMapIndex() != null && taskInstance.getMapIndex() >= 0
+            ? taskInstance.getMapIndex()
+            : null;
+        return Flux.range(1, tries).map(tryNumber -> new TaskTry(taskInstance.getTaskId(), mapIndex, tryNumber));
+    }
+}
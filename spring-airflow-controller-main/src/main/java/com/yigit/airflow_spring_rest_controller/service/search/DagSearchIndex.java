@@ -0,0 +1,408 @@
+package com.yigit.airflow_spring_rest_controller.service.search;
+
+import com.yigit.airflow_spring_rest_controller.dto.dag.Dag;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagSearchHit;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagSearchResult;
+import com.yigit.airflow_spring_rest_controller.dto.dag.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * N-gram inverted index over the DAG catalog.
+ *
+ * Every DAG is indexed by the trigrams of its ID, display name, description, tag names and owners.
+ * A query looks up the posting list of its rarest trigram and verifies only those candidates,
+ * so the cost depends on the number of matching DAGs rather than on the catalog size.
+ * Single characters and bigrams are indexed as well, their posting lists are exactly the DAGs
+ * containing a one or two character query, so the first keystrokes of an autocomplete do not scan the catalog.
+ *
+ * The index is updated incrementally: only DAGs whose indexed fields changed are re-indexed.
+ */
+@Component
+public class DagSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(DagSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<String, Integer> docIdsByDagId = new HashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Deque<Integer> freeDocIds = new ArrayDeque<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Brings the index in line with the given catalog
+     *
+     * @param dags the complete DAG catalog
+     */
+    public void update(List<Dag> dags) {
+        lock.writeLock().lock();
+        try {
+            Set<String> seen = new HashSet<>();
+            int added = 0;
+            int changed = 0;
+
+            for (Dag dag : dags) {
+                if (dag.getDagId() == null) {
+                    continue;
+                }
+                seen.add(dag.getDagId());
+                Document document = Document.of(dag);
+                Integer docId = docIdsByDagId.get(dag.getDagId());
+
+                if (docId == null) {
+                    add(document);
+                    added++;
+                } else if (!documents.get(docId).sameContent(document)) {
+                    remove(docId);
+                    add(document);
+                    changed++;
+                }
+            }
+
+            List<Integer> removed = new ArrayList<>();
+            docIdsByDagId.forEach((dagId, docId) -> {
+                if (!seen.contains(dagId)) {
+                    removed.add(docId);
+                }
+            });
+            removed.forEach(this::remove);
+
+            if (added + changed + removed.size() > 0) {
+                log.debug("DAG search index updated: {} added, {} changed, {} removed, {} grams",
+                    added, changed, removed.size(), postings.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of all DAGs matching the text in any indexed field
+     */
+    public Set<String> matchingDagIds(String text) {
+        String query = normalize(text);
+        lock.readLock().lock();
+        try {
+            Set<String> dagIds = new LinkedHashSet<>();
+            for (Document document : candidates(query)) {
+                if (document.score(query, false) > 0) {
+                    dagIds.add(document.dagId);
+                }
+            }
+            return dagIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked search over the active DAGs
+     *
+     * @param text   the query
+     * @param prefix when true only DAGs with a field or word starting with the query match (autocomplete)
+     * @param limit  maximum number of hits
+     * @return DagSearchResult the best hits
+     */
+    public DagSearchResult search(String text, boolean prefix, int limit) {
+        String query = normalize(text);
+        List<DagSearchHit> hits = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (Document document : candidates(query)) {
+                if (!document.active) {
+                    continue;
+                }
+                int score = document.score(query, prefix);
+                if (score > 0) {
+                    hits.add(document.toHit(score, query));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingInt(DagSearchHit::getScore).reversed()
+            .thenComparingInt(hit -> hit.getDagId().length())
+            .thenComparing(DagSearchHit::getDagId));
+
+        DagSearchResult result = new DagSearchResult();
+        result.setQuery(text);
+        result.setTotalMatches(hits.size());
+        int size = Math.max(0, limit);
+        result.setHits(hits.size() > size ? new ArrayList<>(hits.subList(0, size)) : hits);
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIdsByDagId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Document> candidates(String query) {
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        if (query.length() < GRAM) {
+            Postings list = postings.get(gram(query, 0, query.length()));
+            return list == null ? List.of() : documents(list);
+        }
+
+        // The rarest trigram of the query bounds the candidate set
+        Postings rarest = null;
+        for (long gram : trigrams(query)) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return List.of();
+            }
+            if (rarest == null || list.size < rarest.size) {
+                rarest = list;
+            }
+        }
+
+        return documents(rarest);
+    }
+
+    private List<Document> documents(Postings list) {
+        List<Document> candidates = new ArrayList<>(list.size);
+        for (int i = 0; i < list.size; i++) {
+            candidates.add(documents.get(list.ids[i]));
+        }
+        return candidates;
+    }
+
+    private void add(Document document) {
+        int docId = freeDocIds.isEmpty() ? documents.size() : freeDocIds.pop();
+        if (docId == documents.size()) {
+            documents.add(document);
+        } else {
+            documents.set(docId, document);
+        }
+        docIdsByDagId.put(document.dagId, docId);
+        for (long gram : document.grams()) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(docId);
+        }
+    }
+
+    private void remove(int docId) {
+        Document document = documents.get(docId);
+        for (long gram : document.grams()) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(docId) == 0) {
+                postings.remove(gram);
+            }
+        }
+        docIdsByDagId.remove(document.dagId);
+        documents.set(docId, null);
+        freeDocIds.push(docId);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(gram(text, i, GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * All grams of one, two and three characters of the text
+     */
+    private static void addGrams(String text, Set<Long> grams) {
+        for (int i = 0; i < text.length(); i++) {
+            for (int length = 1; length <= GRAM && i + length <= text.length(); length++) {
+                grams.add(gram(text, i, length));
+            }
+        }
+    }
+
+    /**
+     * Packs up to three characters and their count into one key, so grams of different lengths never collide
+     */
+    private static long gram(String text, int start, int length) {
+        long gram = length;
+        for (int i = start; i < start + length; i++) {
+            gram = (gram << 16) | text.charAt(i);
+        }
+        return gram;
+    }
+
+    private static boolean startsWithWord(String text, String query) {
+        if (text.startsWith(query)) {
+            return true;
+        }
+        int index = text.indexOf(query);
+        while (index > 0) {
+            if (!Character.isLetterOrDigit(text.charAt(index - 1))) {
+                return true;
+            }
+            index = text.indexOf(query, index + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Unsorted, duplicate-free list of document ids
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int docId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = docId;
+        }
+
+        int remove(int docId) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == docId) {
+                    ids[i] = ids[--size];
+                    break;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Lower-cased searchable fields of one DAG
+     */
+    private record Document(String dagId, boolean active, String displayName, String description,
+                            String dagIdText, String displayNameText, String descriptionText,
+                            List<String> tags, List<String> owners) {
+
+        static Document of(Dag dag) {
+            List<String> tags = dag.getTags() == null ? List.of() : dag.getTags().stream()
+                .map(Tag::getName).filter(Objects::nonNull).map(DagSearchIndex::normalize).toList();
+            List<String> owners = dag.getOwners() == null ? List.of() : dag.getOwners().stream()
+                .filter(Objects::nonNull).map(DagSearchIndex::normalize).toList();
+            return new Document(
+                dag.getDagId(),
+                Boolean.TRUE.equals(dag.getIsActive()),
+                dag.getDagDisplayName(),
+                dag.getDescription(),
+                normalize(dag.getDagId()),
+                normalize(dag.getDagDisplayName()),
+                normalize(dag.getDescription()),
+                tags,
+                owners);
+        }
+
+        boolean sameContent(Document other) {
+            return active == other.active
+                && Objects.equals(displayName, other.displayName)
+                && Objects.equals(description, other.description)
+                && tags.equals(other.tags)
+                && owners.equals(other.owners);
+        }
+
+        Set<Long> grams() {
+            Set<Long> grams = new HashSet<>();
+            addGrams(dagIdText, grams);
+            addGrams(displayNameText, grams);
+            addGrams(descriptionText, grams);
+            tags.forEach(tag -> addGrams(tag, grams));
+            owners.forEach(owner -> addGrams(owner, grams));
+            return grams;
+        }
+
+        /**
+         * Weighted relevance of the document for the query, 0 when it does not match
+         */
+        int score(String query, boolean prefix) {
+            int score = 0;
+            if (dagIdText.equals(query)) {
+                score += 100;
+            } else if (dagIdText.startsWith(query)) {
+                score += 50;
+            } else if (startsWithWord(dagIdText, query)) {
+                score += 30;
+            } else if (!prefix && dagIdText.contains(query)) {
+                score += 20;
+            }
+
+            if (displayNameText.startsWith(query)) {
+                score += 15;
+            } else if (prefix ? startsWithWord(displayNameText, query) : displayNameText.contains(query)) {
+                score += 10;
+            }
+
+            for (String tag : tags) {
+                if (tag.equals(query)) {
+                    score += 12;
+                } else if (tag.startsWith(query) || (!prefix && tag.contains(query))) {
+                    score += 6;
+                }
+            }
+
+            for (String owner : owners) {
+                if (owner.equals(query)) {
+                    score += 8;
+                } else if (owner.startsWith(query) || (!prefix && owner.contains(query))) {
+                    score += 4;
+                }
+            }
+
+            if (prefix ? startsWithWord(descriptionText, query) : descriptionText.contains(query)) {
+                score += 5;
+            }
+            return score;
+        }
+
+        DagSearchHit toHit(int score, String query) {
+            List<String> matchedFields = new ArrayList<>();
+            if (dagIdText.contains(query)) {
+                matchedFields.add("dag_id");
+            }
+            if (displayNameText.contains(query)) {
+                matchedFields.add("dag_display_name");
+            }
+            if (descriptionText.contains(query)) {
+                matchedFields.add("description");
+            }
+            if (tags.stream().anyMatch(tag -> tag.contains(query))) {
+                matchedFields.add("tags");
+            }
+            if (owners.stream().anyMatch(owner -> owner.contains(query))) {
+                matchedFields.add("owners");
+            }
+
+            DagSearchHit hit = new DagSearchHit();
+            hit.setDagId(dagId);
+            hit.setDagDisplayName(displayName);
+            hit.setDescription(description);
+            hit.setScore(score);
+            hit.setMatchedFields(matchedFields);
+            return hit;
+        }
+    }
+}
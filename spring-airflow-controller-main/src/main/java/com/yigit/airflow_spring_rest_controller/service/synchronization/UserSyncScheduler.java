@@ -10,7 +10,7 @@ import org.springframework.stereotype.Component;
 
 /**
  * Scheduler that periodically synchronizes Keycloak users
- * Only active when not in test profile
+ * Runs on one instance of the cluster per interval, only active when not in test profile
  */
 @Component
 @EnableScheduling
@@ -31,11 +31,11 @@ public class UserSyncScheduler {
      */
     @Scheduled(fixedRateString = "${keycloak.sync.interval:900000}", initialDelayString = "${keycloak.sync.initial-delay:60000}")
     public void scheduledUserSync() {
-        log.info("Starting scheduled Keycloak user synchronization");
+        log.debug("Scheduled Keycloak user synchronization due");
         
-        userSyncService.syncUsers()
+        userSyncService.syncUsersIfDue()
             .subscribe(
-                count -> log.info("Scheduled user synchronization completed, synchronized {} users", count),
+                report -> log.info("Scheduled user synchronization completed, synchronized {} users", report.getFetched()),
                 error -> log.error("Error during scheduled user synchronization: {}", error.getMessage())
             );
     }
@@ -1,92 +1,360 @@
 package com.yigit.airflow_spring_rest_controller.service.synchronization;
 
+import com.yigit.airflow_spring_rest_controller.dto.metrics.UserSyncReport;
 import com.yigit.airflow_spring_rest_controller.entity.User;
-import com.yigit.airflow_spring_rest_controller.repository.UserRepository;
+import com.yigit.airflow_spring_rest_controller.service.lock.JobLockService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
- * Service responsible for synchronizing Keycloak users to the local database
+ * Service responsible for synchronizing Keycloak users to the local database.
+ *
+ * A run has three phases. The sync hashes of the local users are loaded, Keycloak is paged through and
+ * only users whose hash differs are kept, then all changes are written in one transaction with multi-row
+ * upserts. Local users missing from Keycloak are confirmed one by one, paging is not a consistent
+ * snapshot, and disabled rather than deleted since audit entries reference them. The admin token is
+ * reused across pages and runs until it is about to expire. Scheduled runs happen on one instance of
+ * the cluster per sync interval.
  */
 @Service
 public class UserSyncService {
     private static final Logger log = LoggerFactory.getLogger(UserSyncService.class);
 
+    private static final ParameterizedTypeReference<Map<String, Object>> USER_TYPE = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> USER_LIST_TYPE = new ParameterizedTypeReference<>() {
+    };
+
+    public static final String JOB_NAME = "keycloak-user-sync";
+
+    /**
+     * Sync hash of users disabled because they were deleted in Keycloak
+     */
+    static final String DELETED_HASH = "deleted";
+
+    private static final String UPSERT_COLUMNS =
+        "INSERT INTO users (id, created_timestamp, username, enabled, totp, email_verified, first_name, last_name, email, sync_hash) VALUES ";
+    private static final String UPSERT_CONFLICT =
+        " ON CONFLICT (id) DO UPDATE SET created_timestamp = EXCLUDED.created_timestamp, username = EXCLUDED.username,"
+            + " enabled = EXCLUDED.enabled, totp = EXCLUDED.totp, email_verified = EXCLUDED.email_verified,"
+            + " first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, email = EXCLUDED.email,"
+            + " sync_hash = EXCLUDED.sync_hash";
+
     private final String tokenEndpoint;
     private final String usersEndpoint;
     private final String adminUsername;
     private final String adminPassword;
+    private final int pageSize;
+    private final int batchSize;
+    private final Duration tokenRefreshMargin;
+    private final Duration minInterval;
 
     private final WebClient webClient;
-    private final UserRepository userRepository;
-    private final R2dbcEntityTemplate entityTemplate;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final JobLockService jobLockService;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicReference<AdminToken> adminToken = new AtomicReference<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder tokenRequests = new LongAdder();
+    private volatile UserSyncReport lastReport;
 
     @Autowired
     public UserSyncService(
-            UserRepository userRepository,
-            R2dbcEntityTemplate entityTemplate,
+            DatabaseClient databaseClient,
+            ReactiveTransactionManager transactionManager,
+            JobLockService jobLockService,
+            MeterRegistry meterRegistry,
+            WebClient.Builder webClientBuilder,
             @Value("${keycloak.auth-server-url}") String keycloakBaseUrl,
             @Value("${keycloak.sync.endpoints.token}") String tokenEndpoint,
             @Value("${keycloak.sync.endpoints.users}") String usersEndpoint,
             @Value("${keycloak.sync.admin.username}") String adminUsername,
-            @Value("${keycloak.sync.admin.password}") String adminPassword) {
+            @Value("${keycloak.sync.admin.password}") String adminPassword,
+            @Value("${keycloak.sync.page-size:500}") int pageSize,
+            @Value("${keycloak.sync.batch-size:500}") int batchSize,
+            @Value("${keycloak.sync.token-refresh-margin:30s}") Duration tokenRefreshMargin,
+            @Value("${keycloak.sync.interval:900000}") long interval) {
 
-        this.userRepository = userRepository;
-        this.entityTemplate = entityTemplate;
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.jobLockService = jobLockService;
+        this.meterRegistry = meterRegistry;
         this.tokenEndpoint = tokenEndpoint;
         this.usersEndpoint = usersEndpoint;
         this.adminUsername = adminUsername;
         this.adminPassword = adminPassword;
+        this.pageSize = Math.max(1, pageSize);
+        // Postgres accepts at most 65535 bind parameters per statement, 10 are used per row
+        this.batchSize = Math.max(1, Math.min(batchSize, 5000));
+        this.tokenRefreshMargin = tokenRefreshMargin;
+        // A little under the interval, so a schedule firing slightly early does not skip its turn
+        this.minInterval = Duration.ofMillis(interval * 9 / 10);
 
-        this.webClient = WebClient.builder()
+        this.webClient = webClientBuilder
                 .baseUrl(keycloakBaseUrl)
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
                 .build();
     }
 
     /**
-     * Synchronizes users from Keycloak to the local database
-     * 
-     * @return Mono<Integer> the number of users synchronized
+     * Synchronizes users unless another instance of the cluster is doing so,
+     * or did so within the sync interval
+     *
+     * @return Mono<UserSyncReport> report of the run, empty when it was not run here
+     */
+    public Mono<UserSyncReport> syncUsersIfDue() {
+        return jobLockService.runExclusively(JOB_NAME, minInterval, syncUsers());
+    }
+
+    /**
+     * Synchronizes users from Keycloak to the local database.
+     * Completes empty when a synchronization is already in progress.
+     *
+     * @return Mono<UserSyncReport> counts and phase timings of the run
+     */
+    public Mono<UserSyncReport> syncUsers() {
+        return Mono.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                log.info("Keycloak user synchronization already in progress, skipped");
+                return Mono.empty();
+            }
+            log.info("Starting Keycloak user synchronization");
+            SyncRun run = new SyncRun(tokenRequests.sum());
+
+            return loadHashes(run)
+                    .flatMap(hashes -> fetchChanges(run, hashes))
+                    .flatMap(changes -> write(run, changes))
+                    .then(Mono.fromSupplier(() -> finish(run, null)))
+                    .doOnSuccess(report -> log.info(
+                            "Synchronized {} users from Keycloak in {} ms (New: {}, Updated: {}, Unchanged: {}, Disabled: {}, Phases: {})",
+                            report.getFetched(), report.getDurationMs(), report.getInserted(), report.getUpdated(),
+                            report.getUnchanged(), report.getDisabled(), report.getPhaseMs()))
+                    .doOnError(error -> {
+                        finish(run, error);
+                        log.error("Error synchronizing users from Keycloak", error);
+                    })
+                    .doFinally(signal -> running.set(false));
+        });
+    }
+
+    /**
+     * Report of the last completed or failed run, null before the first one
+     */
+    public UserSyncReport lastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Loads the sync hash of every local user
+     */
+    private Mono<Map<String, String>> loadHashes(SyncRun run) {
+        return databaseClient.sql("SELECT id, sync_hash FROM users")
+                .map(row -> {
+                    String hash = row.get("sync_hash", String.class);
+                    return Map.entry(row.get("id", String.class), hash != null ? hash : "");
+                })
+                .all()
+                .collect(HashMap<String, String>::new, (hashes, entry) -> hashes.put(entry.getKey(), entry.getValue()))
+                .map(hashes -> (Map<String, String>) hashes)
+                .doOnSuccess(hashes -> run.phase("load"));
+    }
+
+    /**
+     * Pages through Keycloak and collects the users that differ from the local ones,
+     * then confirms which of the local users not seen were deleted
+     */
+    private Mono<Changes> fetchChanges(SyncRun run, Map<String, String> hashes) {
+        Changes changes = new Changes();
+
+        Mono<Void> pages = fetchPage(0)
+                .expand(page -> page.users().size() < pageSize ? Mono.empty() : fetchPage(page.first() + pageSize))
+                .doOnNext(page -> {
+                    run.report.setPages(run.report.getPages() + 1);
+                    page.users().forEach(user -> changes.consider(user, hashes));
+                })
+                .then();
+
+        // Paging is not a consistent snapshot, users deleted meanwhile shift later ones to earlier pages
+        Mono<Void> missing = Flux.defer(() -> Flux.fromIterable(hashes.entrySet()))
+                .filter(entry -> !changes.seen.contains(entry.getKey()) && !DELETED_HASH.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .flatMap(id -> fetchUser(id)
+                        .map(user -> new Lookup(id, user))
+                        .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(new Lookup(id, null))), 4)
+                .doOnNext(lookup -> {
+                    if (lookup.user() != null) {
+                        log.debug("User {} was missing from the pages but still exists", lookup.id());
+                        changes.consider(lookup.user(), hashes);
+                    } else {
+                        changes.deleted.add(lookup.id());
+                    }
+                })
+                .then();
+
+        return pages.then(missing)
+                .then(Mono.fromSupplier(() -> {
+                    run.report.setFetched(changes.seen.size());
+                    for (String id : changes.changed.keySet()) {
+                        if (hashes.containsKey(id)) {
+                            run.report.setUpdated(run.report.getUpdated() + 1);
+                        } else {
+                            run.report.setInserted(run.report.getInserted() + 1);
+                        }
+                    }
+                    run.report.setUnchanged(changes.seen.size() - changes.changed.size());
+                    run.report.setDisabled(changes.deleted.size());
+                    run.phase("fetch");
+                    return changes;
+                }));
+    }
+
+    private Mono<UserPage> fetchPage(int first) {
+        return withAdminToken(token -> webClient.get()
+                .uri(usersEndpoint + "?first={first}&max={max}&briefRepresentation=false", first, pageSize)
+                .header("Authorization", "Bearer " + token)
+                .retrieve()
+                .bodyToMono(USER_LIST_TYPE))
+                .map(users -> new UserPage(first, users.stream().map(this::mapToUser).toList()))
+                .doOnNext(page -> log.debug("Fetched {} users from Keycloak starting at {}", page.users().size(), first));
+    }
+
+    private Mono<User> fetchUser(String id) {
+        return withAdminToken(token -> webClient.get()
+                .uri(usersEndpoint + "/{id}", id)
+                .header("Authorization", "Bearer " + token)
+                .retrieve()
+                .bodyToMono(USER_TYPE))
+                .map(this::mapToUser);
+    }
+
+    /**
+     * Writes all changes in one transaction
      */
-    public Mono<Integer> syncUsers() {
-        log.info("Starting Keycloak user synchronization");
+    private Mono<Void> write(SyncRun run, Changes changes) {
+        List<User> upserts = new ArrayList<>(changes.changed.values());
+        if (upserts.isEmpty() && changes.deleted.isEmpty()) {
+            run.phase("write");
+            return Mono.empty();
+        }
 
-        // Track counts of new and skipped users
-        AtomicInteger newUsersCount = new AtomicInteger(0);
-        AtomicInteger skippedUsersCount = new AtomicInteger(0);
+        Mono<Void> statements = Flux.fromIterable(partition(changes.deleted))
+                .concatMap(this::disable)
+                .thenMany(Flux.fromIterable(partition(upserts)).concatMap(this::upsert))
+                .then();
 
+        return transactionalOperator.transactional(statements)
+                .doOnSuccess(done -> run.phase("write"));
+    }
+
+    private Mono<Void> disable(List<String> ids) {
+        return databaseClient.sql("UPDATE users SET enabled = FALSE, sync_hash = :hash WHERE id IN (:ids)")
+                .bind("hash", DELETED_HASH)
+                .bind("ids", ids)
+                .then();
+    }
+
+    private Mono<Void> upsert(List<User> users) {
+        // A username taken over from a deleted user is still held by its disabled row. Usernames about
+        // to be written are moved aside first, rows of this batch get theirs back with the upsert.
+        Mono<Void> releaseUsernames = databaseClient.sql("UPDATE users SET username = username || '~' || id WHERE username IN (:usernames)")
+                .bind("usernames", users.stream().map(User::getUsername).toList())
+                .then();
+
+        StringBuilder sql = new StringBuilder(UPSERT_COLUMNS);
+        for (int i = 0; i < users.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:id").append(i)
+                    .append(", :createdTimestamp").append(i)
+                    .append(", :username").append(i)
+                    .append(", :enabled").append(i)
+                    .append(", :totp").append(i)
+                    .append(", :emailVerified").append(i)
+                    .append(", :firstName").append(i)
+                    .append(", :lastName").append(i)
+                    .append(", :email").append(i)
+                    .append(", :syncHash").append(i)
+                    .append(')');
+        }
+        sql.append(UPSERT_CONFLICT);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            spec = spec.bind("id" + i, user.getId());
+            spec = bind(spec, "createdTimestamp" + i, user.getCreatedTimestamp(), Long.class);
+            spec = spec.bind("username" + i, user.getUsername());
+            spec = bind(spec, "enabled" + i, user.getEnabled(), Boolean.class);
+            spec = bind(spec, "totp" + i, user.getTotp(), Boolean.class);
+            spec = bind(spec, "emailVerified" + i, user.getEmailVerified(), Boolean.class);
+            spec = bind(spec, "firstName" + i, user.getFirstName(), String.class);
+            spec = bind(spec, "lastName" + i, user.getLastName(), String.class);
+            spec = bind(spec, "email" + i, user.getEmail(), String.class);
+            spec = spec.bind("syncHash" + i, user.getSyncHash());
+        }
+        return releaseUsernames.then(spec.then());
+    }
+
+    /**
+     * Calls Keycloak with the admin token, retrying once with a new token when it was rejected
+     */
+    private <T> Mono<T> withAdminToken(Function<String, Mono<T>> request) {
         return getAdminToken()
-                .flatMapMany(this::getUsersFromKeycloak)
-                .flatMap(user -> saveUserToDatabase(user, newUsersCount, skippedUsersCount))
-                .collectList()
-                .map(List::size)
-                .doOnSuccess(
-                        count -> log.info("Successfully synchronized {} users from Keycloak (New: {}, Skipped: {})",
-                                count, newUsersCount.get(), skippedUsersCount.get()))
-                .doOnError(error -> log.error("Error synchronizing users from Keycloak", error));
+                .flatMap(request)
+                .onErrorResume(WebClientResponseException.Unauthorized.class, e -> {
+                    // Revoked before its expiry, e.g. by a Keycloak restart
+                    adminToken.set(null);
+                    return getAdminToken().flatMap(request);
+                });
     }
 
     /**
-     * Gets an admin token from Keycloak
-     * 
+     * Gets an admin token from Keycloak, or the current one while it is not about to expire
+     *
      * @return Mono<String> the admin token
      */
     private Mono<String> getAdminToken() {
+        AdminToken current = adminToken.get();
+        if (current != null && Instant.now().plus(tokenRefreshMargin).isBefore(current.expiresAt())) {
+            return Mono.just(current.value());
+        }
         log.debug("Getting admin token from Keycloak");
 
         MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
@@ -100,41 +368,30 @@ public class UserSyncService {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                 .body(BodyInserters.fromFormData(formData))
                 .retrieve()
-                .bodyToMono(Map.class)
-                .map(response -> (String) response.get("access_token"))
+                .bodyToMono(USER_TYPE)
+                .map(response -> {
+                    tokenRequests.increment();
+                    Object expiresIn = response.get("expires_in");
+                    long seconds = expiresIn != null ? Long.parseLong(expiresIn.toString()) : 60;
+                    AdminToken token = new AdminToken((String) response.get("access_token"), Instant.now().plusSeconds(seconds));
+                    adminToken.set(token);
+                    return token.value();
+                })
                 .doOnSuccess(token -> log.debug("Successfully obtained admin token"))
                 .doOnError(error -> log.error("Error getting admin token", error));
     }
 
-    /**
-     * Gets users from Keycloak using the admin token
-     * 
-     * @param adminToken the admin token
-     * @return Flux<User> the users from Keycloak
-     */
-    private Flux<User> getUsersFromKeycloak(String adminToken) {
-        log.debug("Getting users from Keycloak");
-
-        return webClient.get()
-                .uri(usersEndpoint)
-                .header("Authorization", "Bearer " + adminToken)
-                .retrieve()
-                .bodyToFlux(Map.class)
-                .map(this::mapToUser)
-                .doOnComplete(() -> log.debug("Successfully retrieved users from Keycloak"))
-                .doOnError(error -> log.error("Error getting users from Keycloak", error));
-    }
-
     /**
      * Maps a Keycloak user JSON to a User entity
-     * 
+     *
      * @param userMap the Keycloak user JSON as a Map
      * @return User the User entity
      */
     private User mapToUser(Map<String, Object> userMap) {
-        return User.builder()
+        Object createdTimestamp = userMap.get("createdTimestamp");
+        User user = User.builder()
                 .id((String) userMap.get("id"))
-                .createdTimestamp(Long.valueOf(userMap.get("createdTimestamp").toString()))
+                .createdTimestamp(createdTimestamp != null ? Long.valueOf(createdTimestamp.toString()) : null)
                 .username((String) userMap.get("username"))
                 .enabled((Boolean) userMap.get("enabled"))
                 .totp((Boolean) userMap.get("totp"))
@@ -143,39 +400,123 @@ public class UserSyncService {
                 .lastName((String) userMap.get("lastName"))
                 .email((String) userMap.get("email"))
                 .build();
+        user.setSyncHash(hash(user));
+        return user;
     }
 
     /**
-     * Saves a user to the database only if it doesn't already exist
-     * No updates are performed on existing users
-     * 
-     * @param user              the user to save
-     * @param newUsersCount     counter for new users
-     * @param skippedUsersCount counter for skipped users
-     * @return Mono<User> the saved user or existing user
+     * SHA-256 of the synchronized attributes, nulls are distinguished from empty strings
      */
-    private Mono<User> saveUserToDatabase(User user, AtomicInteger newUsersCount, AtomicInteger skippedUsersCount) {
-        log.debug("Processing user for database: {}", user.getUsername());
-
-        // First check if the user already exists
-        return userRepository.findById(user.getId())
-                .flatMap(existingUser -> {
-                    // User already exists, do nothing
-                    log.info("SKIP: User '{}' (id: {}) already exists, skipping", user.getUsername(), user.getId());
-                    skippedUsersCount.incrementAndGet();
-                    return Mono.just(user);
-                })
-                .switchIfEmpty(Mono.defer(() -> {
-                    // INSERT NEW USER with entityTemplate.insert() instead of userRepository.save()
-                    log.info("INSERT: Adding new user '{}' (id: {})", user.getUsername(), user.getId());
-                    return entityTemplate.insert(User.class)
-                            .using(user)
-                            .doOnSuccess(savedUser -> {
-                                log.info("SUCCESS: Added user '{}' to database", savedUser.getUsername());
-                                newUsersCount.incrementAndGet();
-                            })
-                            .doOnError(error -> log.error("ERROR: Failed to insert user {}: {}", user.getUsername(),
-                                    error.getMessage()));
-                }));
+    static String hash(User user) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        Object[] values = {user.getCreatedTimestamp(), user.getUsername(), user.getEnabled(), user.getTotp(),
+                user.getEmailVerified(), user.getFirstName(), user.getLastName(), user.getEmail()};
+        for (Object value : values) {
+            if (value == null) {
+                digest.update((byte) 1);
+            } else {
+                digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private UserSyncReport finish(SyncRun run, Throwable error) {
+        UserSyncReport report = run.report;
+        report.setDurationMs((System.nanoTime() - run.started) / 1_000_000);
+        report.setTokenRequests((int) (tokenRequests.sum() - run.tokenRequestsBefore));
+        report.setSuccess(error == null);
+        report.setError(error != null ? error.getMessage() : null);
+        lastReport = report;
+        record(report);
+        return report;
+    }
+
+    /**
+     * Publishes the run as gateway.user.sync.* meters
+     */
+    private void record(UserSyncReport report) {
+        String outcome = report.isSuccess() ? "success" : "failure";
+        meterRegistry.timer("gateway.user.sync.duration", "outcome", outcome)
+                .record(Duration.ofMillis(report.getDurationMs()));
+        report.getPhaseMs().forEach((phase, millis) ->
+                meterRegistry.timer("gateway.user.sync.phase", "phase", phase).record(Duration.ofMillis(millis)));
+        if (report.isSuccess()) {
+            meterRegistry.counter("gateway.user.sync.users", "result", "inserted").increment(report.getInserted());
+            meterRegistry.counter("gateway.user.sync.users", "result", "updated").increment(report.getUpdated());
+            meterRegistry.counter("gateway.user.sync.users", "result", "unchanged").increment(report.getUnchanged());
+            meterRegistry.counter("gateway.user.sync.users", "result", "disabled").increment(report.getDisabled());
+        }
+        meterRegistry.counter("gateway.user.sync.pages").increment(report.getPages());
+        meterRegistry.counter("gateway.user.sync.token.requests").increment(report.getTokenRequests());
+    }
+
+    private <T> List<List<T>> partition(List<T> items) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += batchSize) {
+            batches.add(items.subList(from, Math.min(from + batchSize, items.size())));
+        }
+        return batches;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                          Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private record AdminToken(String value, Instant expiresAt) {
+    }
+
+    private record UserPage(int first, List<User> users) {
+    }
+
+    private record Lookup(String id, User user) {
+    }
+
+    /**
+     * Changes found in Keycloak during one run
+     */
+    private static final class Changes {
+        // Keyed by ID, a user may show up on two pages when users are added while paging
+        private final Map<String, User> changed = new LinkedHashMap<>();
+        private final Set<String> seen = new HashSet<>();
+        private final List<String> deleted = new ArrayList<>();
+
+        void consider(User user, Map<String, String> hashes) {
+            if (user.getId() == null) {
+                return;
+            }
+            seen.add(user.getId());
+            if (!user.getSyncHash().equals(hashes.get(user.getId()))) {
+                changed.put(user.getId(), user);
+            }
+        }
+    }
+
+    /**
+     * Report and phase clock of one run
+     */
+    private static final class SyncRun {
+        private final UserSyncReport report = new UserSyncReport();
+        private final long started = System.nanoTime();
+        private final long tokenRequestsBefore;
+        private long phaseStarted = started;
+
+        SyncRun(long tokenRequestsBefore) {
+            this.tokenRequestsBefore = tokenRequestsBefore;
+            report.setStartedAt(Instant.now());
+        }
+
+        void phase(String name) {
+            long now = System.nanoTime();
+            report.getPhaseMs().put(name, (now - phaseStarted) / 1_000_000);
+            phaseStarted = now;
+        }
     }
-}
\ No newline at end of file
+}
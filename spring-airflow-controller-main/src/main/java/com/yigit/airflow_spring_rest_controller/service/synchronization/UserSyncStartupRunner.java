@@ -10,7 +10,7 @@ import reactor.core.publisher.Mono;
 
 /**
  * Startup runner that synchronizes Keycloak users when the application starts
- * Only active when not in test profile
+ * Skipped when another instance synchronized within the sync interval, only active when not in test profile
  */
 @Component
 @Profile("!test")
@@ -28,13 +28,13 @@ public class UserSyncStartupRunner implements CommandLineRunner {
     public void run(String... args) {
         log.info("Triggering initial Keycloak user synchronization on startup");
         
-        userSyncService.syncUsers()
+        userSyncService.syncUsersIfDue()
             .onErrorResume(error -> {
                 log.error("Initial user synchronization failed: {}", error.getMessage());
-                return Mono.just(0);
+                return Mono.empty();
             })
             .subscribe(
-                count -> log.info("Initial user synchronization completed, synchronized {} users", count),
+                report -> log.info("Initial user synchronization completed, synchronized {} users", report.getFetched()),
                 error -> log.error("Unexpected error during initial user synchronization", error)
             );
     }
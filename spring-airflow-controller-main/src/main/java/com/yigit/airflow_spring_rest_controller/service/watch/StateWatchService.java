@@ -0,0 +1,330 @@
+package com.yigit.airflow_spring_rest_controller.service.watch;
+
+import com.yigit.airflow_spring_rest_controller.dto.dagrun.DagRun;
+import com.yigit.airflow_spring_rest_controller.dto.dagrun.DagRunCollection;
+import com.yigit.airflow_spring_rest_controller.dto.metrics.WatchStats;
+import com.yigit.airflow_spring_rest_controller.dto.task.TaskInstance;
+import com.yigit.airflow_spring_rest_controller.dto.watch.StateChange;
+import com.yigit.airflow_spring_rest_controller.dto.watch.WatchEvent;
+import com.yigit.airflow_spring_rest_controller.service.DagRunService;
+import com.yigit.airflow_spring_rest_controller.service.TaskInstanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes state transitions of DAG runs and task instances to watchers.
+ *
+ * There is one poller per watched DAG (its recent runs) or DAG run (its task instances), shared by all
+ * subscribers through a multicast sink, so the load on Airflow depends on the number of watched DAGs and
+ * runs rather than on the number of open clients. Every poll is diffed against the previous snapshot and
+ * only the changes are published. A DAG watch covers the most recent runs only, runs pushed out of that
+ * window by newer ones are dropped from the snapshot without a removal event. The poll interval grows while nothing changes and drops back to the
+ * minimum on the next change. A poller is stopped when its last subscriber leaves.
+ */
+@Service
+public class StateWatchService {
+    private static final Logger log = LoggerFactory.getLogger(StateWatchService.class);
+
+    private final DagRunService dagRunService;
+    private final TaskInstanceService taskInstanceService;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final double backoff;
+    private final int dagRunLimit;
+
+    private final Map<WatchKey, Watch> watches = new ConcurrentHashMap<>();
+
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder pollFailures = new LongAdder();
+    private final LongAdder eventsPublished = new LongAdder();
+
+    @Autowired
+    public StateWatchService(
+            DagRunService dagRunService,
+            TaskInstanceService taskInstanceService,
+            @Value("${gateway.watch.min-interval:2s}") Duration minInterval,
+            @Value("${gateway.watch.max-interval:30s}") Duration maxInterval,
+            @Value("${gateway.watch.backoff:1.5}") double backoff,
+            @Value("${gateway.watch.dag-run-limit:100}") int dagRunLimit) {
+        this.dagRunService = dagRunService;
+        this.taskInstanceService = taskInstanceService;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.backoff = backoff;
+        this.dagRunLimit = dagRunLimit;
+    }
+
+    /**
+     * Watches the most recent runs of a DAG
+     */
+    public Flux<WatchEvent> watchDag(String dagId) {
+        return watch(new WatchKey(dagId, null));
+    }
+
+    /**
+     * Watches the task instances of a DAG run
+     */
+    public Flux<WatchEvent> watchDagRun(String dagId, String dagRunId) {
+        return watch(new WatchKey(dagId, dagRunId));
+    }
+
+    public WatchStats stats() {
+        WatchStats stats = new WatchStats();
+        stats.setWatches(watches.size());
+        stats.setSubscribers(watches.values().stream().mapToInt(Watch::subscriberCount).sum());
+        stats.setPolls(polls.sum());
+        stats.setPollFailures(pollFailures.sum());
+        stats.setEventsPublished(eventsPublished.sum());
+        return stats;
+    }
+
+    /**
+     * Subscribers first receive the latest snapshot, if one was taken already, then all following transitions
+     */
+    private Flux<WatchEvent> watch(WatchKey key) {
+        return Flux.create(emitter -> {
+            // A watch that has just been closed rejects new subscribers, it is replaced by a fresh one
+            while (!watches.computeIfAbsent(key, Watch::new).join(emitter)) {
+                log.debug("Watch {} closed while joining, retrying", key);
+            }
+        }, FluxSink.OverflowStrategy.BUFFER);
+    }
+
+    private Mono<Map<String, StateChange>> fetch(WatchKey key) {
+        if (key.dagRunId() == null) {
+            Map<String, String> params = Map.of("order_by", "-execution_date", "limit", String.valueOf(dagRunLimit));
+            return dagRunService.getDagRuns(key.dagId(), params).map(StateWatchService::dagRunStates);
+        }
+        return taskInstanceService.streamTaskInstances(key.dagId(), key.dagRunId(), null)
+            .collectList()
+            .map(StateWatchService::taskInstanceStates);
+    }
+
+    private static Map<String, StateChange> dagRunStates(DagRunCollection collection) {
+        Map<String, StateChange> states = new LinkedHashMap<>();
+        if (collection.getDagRuns() != null) {
+            for (DagRun dagRun : collection.getDagRuns()) {
+                StateChange item = new StateChange();
+                item.setId(dagRun.getDagRunId());
+                item.setState(dagRun.getState());
+                item.setExecutionDate(dagRun.getExecutionDate());
+                item.setStartDate(dagRun.getStartDate());
+                item.setEndDate(dagRun.getEndDate());
+                states.put(dagRun.getDagRunId(), item);
+            }
+        }
+        return states;
+    }
+
+    private static Map<String, StateChange> taskInstanceStates(List<TaskInstance> taskInstances) {
+        Map<String, StateChange> states = new LinkedHashMap<>();
+        for (TaskInstance taskInstance : taskInstances) {
+            StateChange item = new StateChange();
+            item.setId(taskInstance.getTaskId());
+            item.setMapIndex(taskInstance.getMapIndex());
+            item.setState(taskInstance.getState());
+            item.setTryNumber(taskInstance.getTryNumber());
+            item.setStartDate(taskInstance.getStartDate());
+            item.setEndDate(taskInstance.getEndDate());
+            states.put(taskInstance.getTaskId() + "#" + taskInstance.getMapIndex(), item);
+        }
+        return states;
+    }
+
+    /**
+     * @param windowed whether current holds only the most recent runs. Runs missing from it that are older
+     *                 than its oldest run have left the window and are not reported as removed.
+     */
+    private static List<StateChange> diff(Map<String, StateChange> previous, Map<String, StateChange> current,
+                                          boolean windowed) {
+        List<StateChange> changes = new ArrayList<>();
+        current.forEach((id, item) -> {
+            StateChange before = previous.get(id);
+            if (before == null
+                    || !Objects.equals(before.getState(), item.getState())
+                    || !Objects.equals(before.getTryNumber(), item.getTryNumber())) {
+                StateChange change = copy(item);
+                change.setPreviousState(before != null ? before.getState() : null);
+                changes.add(change);
+            }
+        });
+        ZonedDateTime windowStart = windowed
+            ? current.values().stream().map(StateChange::getExecutionDate).filter(Objects::nonNull)
+                .min(Comparator.naturalOrder()).orElse(null)
+            : null;
+        previous.forEach((id, item) -> {
+            if (current.containsKey(id)) {
+                return;
+            }
+            if (windowStart != null && item.getExecutionDate() != null && item.getExecutionDate().isBefore(windowStart)) {
+                return;
+            }
+            StateChange change = copy(item);
+            change.setPreviousState(item.getState());
+            change.setState(null);
+            changes.add(change);
+        });
+        return changes;
+    }
+
+    private static StateChange copy(StateChange item) {
+        StateChange copy = new StateChange();
+        copy.setId(item.getId());
+        copy.setMapIndex(item.getMapIndex());
+        copy.setState(item.getState());
+        copy.setTryNumber(item.getTryNumber());
+        copy.setExecutionDate(item.getExecutionDate());
+        copy.setStartDate(item.getStartDate());
+        copy.setEndDate(item.getEndDate());
+        return copy;
+    }
+
+    private record WatchKey(String dagId, String dagRunId) {
+    }
+
+    /**
+     * Poller and subscribers of one watched DAG or DAG run
+     */
+    private final class Watch {
+        private final WatchKey key;
+        private final Sinks.Many<WatchEvent> sink = Sinks.many().multicast().directBestEffort();
+
+        // Guarded by this
+        private int subscribers;
+        private boolean closed;
+        private Map<String, StateChange> snapshot;
+        private long sequence;
+        private Duration interval = minInterval;
+        private Disposable poller;
+
+        Watch(WatchKey key) {
+            this.key = key;
+        }
+
+        synchronized int subscriberCount() {
+            return subscribers;
+        }
+
+        /**
+         * Registers a subscriber. The snapshot is sent and the sink subscribed while holding the lock
+         * the poller publishes under, so no transition can fall between them.
+         *
+         * @return boolean false when the watch has been closed
+         */
+        synchronized boolean join(FluxSink<WatchEvent> emitter) {
+            if (closed) {
+                return false;
+            }
+            subscribers++;
+            if (snapshot != null) {
+                emitter.next(event(WatchEvent.SNAPSHOT, new ArrayList<>(snapshot.values())));
+            }
+            Disposable subscription = sink.asFlux().subscribe(emitter::next, emitter::error, emitter::complete);
+            emitter.onDispose(() -> {
+                subscription.dispose();
+                leave();
+            });
+            // A subscriber that cancelled already has left within onDispose, possibly closing the watch
+            if (closed) {
+                return true;
+            }
+            if (poller == null) {
+                log.debug("Starting watch {}", key);
+                poller = Mono.defer(this::poll)
+                    .then(Mono.defer(() -> Mono.delay(currentInterval())))
+                    .repeat()
+                    .subscribe();
+            }
+            return true;
+        }
+
+        private synchronized void leave() {
+            subscribers--;
+            if (subscribers == 0 && !closed) {
+                closed = true;
+                if (poller != null) {
+                    poller.dispose();
+                }
+                watches.remove(key, this);
+                log.debug("Stopped watch {}", key);
+            }
+        }
+
+        private synchronized Duration currentInterval() {
+            return interval;
+        }
+
+        private Mono<Void> poll() {
+            polls.increment();
+            return fetch(key)
+                .doOnNext(this::publish)
+                .onErrorResume(e -> {
+                    pollFailures.increment();
+                    log.warn("Polling watch {} failed: {}", key, e.getMessage());
+                    synchronized (this) {
+                        interval = maxInterval;
+                    }
+                    return Mono.empty();
+                })
+                .then();
+        }
+
+        private synchronized void publish(Map<String, StateChange> current) {
+            if (closed) {
+                return;
+            }
+            if (snapshot == null) {
+                snapshot = current;
+                emit(event(WatchEvent.SNAPSHOT, new ArrayList<>(current.values())));
+                return;
+            }
+
+            // A full page of runs may have pushed older runs out of the watched window
+            boolean windowed = key.dagRunId() == null && current.size() >= dagRunLimit;
+            List<StateChange> changes = diff(snapshot, current, windowed);
+            snapshot = current;
+            if (changes.isEmpty()) {
+                long next = (long) (interval.toMillis() * backoff);
+                interval = Duration.ofMillis(Math.min(next, maxInterval.toMillis()));
+            } else {
+                interval = minInterval;
+                emit(event(WatchEvent.TRANSITION, changes));
+            }
+        }
+
+        private void emit(WatchEvent event) {
+            sink.tryEmitNext(event);
+            eventsPublished.increment();
+        }
+
+        private WatchEvent event(String type, List<StateChange> changes) {
+            WatchEvent event = new WatchEvent();
+            event.setType(type);
+            event.setDagId(key.dagId());
+            event.setDagRunId(key.dagRunId());
+            // A snapshot reflects all transitions up to the current sequence
+            event.setSequence(WatchEvent.SNAPSHOT.equals(type) ? sequence : ++sequence);
+            event.setChanges(changes);
+            return event;
+        }
+    }
+}
@@ -3,6 +3,8 @@ DROP TABLE IF EXISTS users CASCADE;
 DROP INDEX IF EXISTS idx_users_username;
 DROP INDEX IF EXISTS idx_users_email;
 DROP TABLE IF EXISTS audit_logs CASCADE;
+DROP TABLE IF EXISTS audit_log_rollups CASCADE;
+DROP TABLE IF EXISTS job_leases CASCADE;
 
 -- User tablosunu oluştur
 CREATE TABLE users (
@@ -15,6 +17,7 @@ CREATE TABLE users (
     first_name VARCHAR(255),
     last_name VARCHAR(255),
     email VARCHAR(255),
+    sync_hash VARCHAR(64),
     CONSTRAINT uk_users_username UNIQUE (username)
 );
 
@@ -23,8 +26,12 @@ CREATE INDEX idx_users_username ON users(username);
 CREATE INDEX idx_users_email ON users(email);
 
 -- Audit logs tablosunu oluştur
+-- Monthly range partitions on operation_time. Partitions named audit_logs_yYYYYmMM are created ahead
+-- and expired by AuditPartitionManager, rows outside of all monthly partitions land in the default one
+-- and are moved into their month's partition when AuditPartitionManager creates it.
+-- The partition key has to be part of the primary key.
 CREATE TABLE audit_logs (
-    id SERIAL PRIMARY KEY,
+    id BIGSERIAL,
     user_id VARCHAR(255) NOT NULL,
     username VARCHAR(255) NOT NULL,
     dag_id VARCHAR(255) NOT NULL,
@@ -32,11 +39,45 @@ CREATE TABLE audit_logs (
     operation VARCHAR(50) NOT NULL,
     operation_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     details TEXT,
+    CONSTRAINT pk_audit_logs PRIMARY KEY (id, operation_time),
     CONSTRAINT fk_audit_logs_user FOREIGN KEY (user_id) REFERENCES users(id)
-);
+) PARTITION BY RANGE (operation_time);
+
+CREATE TABLE audit_logs_default PARTITION OF audit_logs DEFAULT;
 
 -- Audit logs indekslerini oluştur
-CREATE INDEX idx_audit_logs_user_id ON audit_logs(user_id);
-CREATE INDEX idx_audit_logs_dag_id ON audit_logs(dag_id);
-CREATE INDEX idx_audit_logs_operation ON audit_logs(operation);
-CREATE INDEX idx_audit_logs_operation_time ON audit_logs(operation_time); 
\ No newline at end of file
+-- Indexes are created on every partition. Every filter column leads a composite index ending with the
+-- newest first ordering of the API, so filtered and keyset paginated queries stop after reading LIMIT
+-- index entries. Rows are appended in time order, which keeps the BRIN index on operation_time tiny.
+CREATE INDEX idx_audit_logs_user_time ON audit_logs(user_id, operation_time DESC, id DESC);
+CREATE INDEX idx_audit_logs_dag_time ON audit_logs(dag_id, operation_time DESC, id DESC);
+CREATE INDEX idx_audit_logs_user_dag_time ON audit_logs(user_id, dag_id, operation_time DESC, id DESC);
+CREATE INDEX idx_audit_logs_operation_time ON audit_logs(operation, operation_time DESC, id DESC);
+CREATE INDEX idx_audit_logs_dag_run_time ON audit_logs(dag_run_id, operation_time DESC, id DESC) WHERE dag_run_id IS NOT NULL;
+CREATE INDEX idx_audit_logs_time ON audit_logs(operation_time DESC, id DESC);
+CREATE INDEX idx_audit_logs_time_brin ON audit_logs USING BRIN (operation_time) WITH (pages_per_range = 32);
+
+-- Hourly audit counts, maintained by the audit log writer in the transaction of the insert
+CREATE TABLE audit_log_rollups (
+    bucket_start TIMESTAMP NOT NULL,
+    operation VARCHAR(50) NOT NULL,
+    dag_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    count BIGINT NOT NULL,
+    CONSTRAINT pk_audit_log_rollups PRIMARY KEY (bucket_start, operation, dag_id, user_id)
+);
+
+CREATE INDEX idx_audit_log_rollups_dag ON audit_log_rollups(dag_id, bucket_start);
+CREATE INDEX idx_audit_log_rollups_user ON audit_log_rollups(user_id, bucket_start);
+
+-- Leases of background jobs that run on one gateway instance at a time, see JobLockService.
+-- Expiry is compared with the database clock, so the clocks of the instances do not matter.
+CREATE TABLE job_leases (
+    name VARCHAR(100) PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    token VARCHAR(36) NOT NULL,
+    acquired_at TIMESTAMPTZ NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL,
+    last_run_at TIMESTAMPTZ
+);
@@ -0,0 +1,78 @@
+package com.yigit.airflow_spring_rest_controller.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AirflowRequestCoalescerTest {
+
+    private static final String KEY = AirflowRequestCoalescer.key("/dags/{dagId}", null, "example");
+
+    private final AirflowRequestCoalescer coalescer = new AirflowRequestCoalescer(true);
+
+    @Test
+    void callerJoiningWhileTheResultIsDeliveredReadsItWithoutAnotherRequest() {
+        Sinks.One<String> upstream = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> call = upstream.asMono().doOnSubscribe(s -> calls.incrementAndGet());
+        AtomicReference<StepVerifier> late = new AtomicReference<>();
+
+        // Joins from within the delivery of the result, before the call released its key
+        StepVerifier.create(coalescer.coalesce(KEY, () -> call)
+                .doOnNext(value -> late.set(StepVerifier.create(coalescer.coalesce(KEY, () -> call))
+                    .expectNext("example")
+                    .expectComplete()
+                    .verifyLater())))
+            .then(() -> upstream.tryEmitValue("example"))
+            .expectNext("example")
+            .verifyComplete();
+        late.get().verify();
+
+        assertEquals(1, calls.get());
+        assertEquals(0, coalescer.stats().getInFlight());
+    }
+
+    @Test
+    void upstreamIsCancelledOnlyWhenAllCallersLeft() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Mono<String> call = Mono.<String>never().doOnCancel(() -> cancelled.set(true));
+
+        Disposable first = coalescer.coalesce(KEY, () -> call).subscribe();
+        Disposable second = coalescer.coalesce(KEY, () -> call).subscribe();
+
+        first.dispose();
+        assertFalse(cancelled.get());
+        assertEquals(1, coalescer.stats().getInFlight());
+
+        second.dispose();
+        assertTrue(cancelled.get());
+        assertEquals(1, coalescer.stats().getCancelledCalls());
+        assertEquals(0, coalescer.stats().getInFlight());
+    }
+
+    @Test
+    void errorsAreSharedWithAllCallers() {
+        Sinks.One<String> upstream = Sinks.one();
+
+        StepVerifier first = StepVerifier.create(coalescer.coalesce(KEY, upstream::asMono))
+            .expectError(IllegalStateException.class)
+            .verifyLater();
+        StepVerifier.create(coalescer.coalesce(KEY, upstream::asMono))
+            .then(() -> upstream.tryEmitError(new IllegalStateException("Airflow unavailable")))
+            .expectError(IllegalStateException.class)
+            .verify();
+        first.verify();
+
+        assertEquals(1, coalescer.stats().getUpstreamCalls());
+    }
+}
@@ -0,0 +1,129 @@
+package com.yigit.airflow_spring_rest_controller.service.feed;
+
+import com.yigit.airflow_spring_rest_controller.dto.dag.Dag;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagChangeEvent;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagChangePage;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagCollection;
+import com.yigit.airflow_spring_rest_controller.service.DagService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DagChangeFeedTest {
+
+    private final DagService dagService = mock(DagService.class);
+    private final DagChangeFeed feed = new DagChangeFeed(dagService, true, 3);
+
+    @Test
+    void omittedCursorReturnsAllRetainedChanges() {
+        snapshot(catalog(dag("a", false)));
+        snapshot(catalog(dag("a", true), dag("b", false)));
+
+        DagChangePage page = feed.changesAfter(null, 10);
+
+        assertFalse(page.isReset());
+        assertEquals(List.of("a", "b"), dagIds(page));
+        assertEquals(DagChangeEvent.CHANGED, page.getEvents().get(0).getType());
+        assertEquals("true", page.getEvents().get(0).getChanges().get("is_paused").getNewValue());
+        assertEquals(DagChangeEvent.ADDED, page.getEvents().get(1).getType());
+        assertEquals(page.getEvents().get(1).getCursor(), page.getNextCursor());
+        assertEquals(2, page.getLatestSequence());
+    }
+
+    @Test
+    void cursorPagesThroughTheChanges() {
+        snapshot(catalog(dag("a", false), dag("b", false)));
+        snapshot(catalog(dag("b", true), dag("c", false)));
+
+        DagChangePage first = feed.changesAfter("", 2);
+        DagChangePage second = feed.changesAfter(first.getNextCursor(), 2);
+        DagChangePage caughtUp = feed.changesAfter(second.getNextCursor(), 2);
+
+        assertEquals(List.of("b", "c"), dagIds(first));
+        assertEquals(List.of("a"), dagIds(second));
+        assertEquals(DagChangeEvent.REMOVED, second.getEvents().get(0).getType());
+        assertTrue(caughtUp.getEvents().isEmpty());
+        assertFalse(caughtUp.isReset());
+        assertEquals(second.getNextCursor(), caughtUp.getNextCursor());
+    }
+
+    @Test
+    void omittedCursorAfterRolloverReturnsTheOldestRetainedChanges() {
+        snapshot(catalog());
+        String initialCursor = feed.changesAfter(null, 10).getNextCursor();
+        snapshot(catalog(dag("a", false), dag("b", false)));
+        snapshot(catalog(dag("a", false), dag("b", false), dag("c", false), dag("d", false)));
+
+        DagChangePage page = feed.changesAfter(null, 10);
+
+        assertFalse(page.isReset());
+        assertEquals(List.of("b", "c", "d"), dagIds(page));
+        assertEquals(4, page.getLatestSequence());
+
+        // The first change is no longer retained
+        DagChangePage reset = feed.changesAfter(initialCursor, 10);
+        assertTrue(reset.isReset());
+        assertTrue(reset.getEvents().isEmpty());
+        assertEquals(page.getNextCursor(), reset.getNextCursor());
+    }
+
+    @Test
+    void cursorOfAnotherFeedResets() {
+        snapshot(catalog(dag("a", false)));
+        snapshot(catalog(dag("a", true)));
+        DagChangeFeed other = new DagChangeFeed(dagService, true, 3);
+
+        assertTrue(feed.changesAfter("deadbeef:1", 10).isReset());
+        assertTrue(feed.changesAfter(other.changesAfter(null, 10).getNextCursor(), 10).isReset());
+
+        StepVerifier.create(feed.stream("deadbeef:1"))
+            .assertNext(event -> assertEquals(DagChangeEvent.RESET, event.getType()))
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    void snapshotsAreReadThroughTheCachedCatalog() {
+        DagCollection catalog = catalog(dag("a", false));
+        snapshot(catalog);
+        snapshot(catalog);
+        snapshot(catalog(dag("a", false)));
+
+        assertTrue(feed.changesAfter(null, 10).getEvents().isEmpty());
+        verify(dagService, never()).streamDags();
+    }
+
+    private void snapshot(DagCollection catalog) {
+        when(dagService.getDags()).thenReturn(Mono.just(catalog));
+        feed.poll();
+    }
+
+    private static List<String> dagIds(DagChangePage page) {
+        return page.getEvents().stream().map(DagChangeEvent::getDagId).toList();
+    }
+
+    private static DagCollection catalog(Dag... dags) {
+        DagCollection catalog = new DagCollection();
+        catalog.setDags(new ArrayList<>(List.of(dags)));
+        catalog.setTotalEntries(dags.length);
+        return catalog;
+    }
+
+    private static Dag dag(String dagId, boolean paused) {
+        Dag dag = new Dag();
+        dag.setDagId(dagId);
+        dag.setIsPaused(paused);
+        return dag;
+    }
+}
@@ -0,0 +1,55 @@
+package com.yigit.airflow_spring_rest_controller.service.logs;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AirflowLogContentTest {
+
+    @Test
+    void unwrapsTheMessageOfAnAirflow2Tuple() {
+        assertEquals("*** Found local files\nline 1\n",
+            AirflowLogContent.unwrap("[('worker-1', '*** Found local files\\nline 1\\n')]"));
+    }
+
+    @Test
+    void concatenatesTheMessagesOfAllHostsOnSeparateLines() {
+        assertEquals("first\nsecond", AirflowLogContent.unwrap("[('a', 'first'), ('b', 'second')]"));
+        assertEquals("first\nsecond", AirflowLogContent.unwrap("[('a', 'first\\n'), ('b', 'second'),]"));
+    }
+
+    @Test
+    void decodesQuotingAndEscapes() {
+        // Python switches to double quotes for messages containing single quotes
+        assertEquals("it's done", AirflowLogContent.unwrap("[('h', \"it's done\")]"));
+        assertEquals("it's \"quoted\"", AirflowLogContent.unwrap("[('h', 'it\\'s \"quoted\"')]"));
+        assertEquals("tab\there\r\nback\\slash", AirflowLogContent.unwrap("[('h', 'tab\\there\\r\\nback\\\\slash')]"));
+        assertEquals("A\u00e9\u20ac\uD83D\uDE00", AirflowLogContent.unwrap("[('h', '\\x41\\xe9\\u20ac\\U0001f600')]"));
+        assertEquals("C:\\dir\\q", AirflowLogContent.unwrap("[('h', 'C:\\\\dir\\q')]"));
+    }
+
+    @Test
+    void returnsTruncatedOrMalformedContentUnchanged() {
+        String[] contents = {
+            "[('h', 'unterminated",
+            "[('h', 'message')",
+            "[('h', 'message'",
+            "[('h')]",
+            "[('h', 'bad escape \\x4')]",
+            "[('h', 'ends with backslash\\",
+            "[('h', 'message')] trailing"
+        };
+        for (String content : contents) {
+            assertEquals(content, AirflowLogContent.unwrap(content));
+        }
+    }
+
+    @Test
+    void passesOtherContentThrough() {
+        assertNull(AirflowLogContent.unwrap(null));
+        assertEquals("plain log line\n", AirflowLogContent.unwrap("plain log line\n"));
+        assertEquals("[2024-01-01, 10:00:00 UTC] INFO - Started", AirflowLogContent.unwrap("[2024-01-01, 10:00:00 UTC] INFO - Started"));
+        assertEquals("", AirflowLogContent.unwrap("[]"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.yigit.airflow_spring_rest_controller.service.search;
+
+import com.yigit.airflow_spring_rest_controller.dto.dag.Dag;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagSearchHit;
+import com.yigit.airflow_spring_rest_controller.dto.dag.DagSearchResult;
+import com.yigit.airflow_spring_rest_controller.dto.dag.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DagSearchIndexTest {
+
+    private final DagSearchIndex index = new DagSearchIndex();
+
+    @Test
+    void ranksExactIdBeforePrefixBeforeSubstring() {
+        index.update(List.of(
+            dag("daily_etl", "Daily ETL", null, List.of()),
+            dag("etl", "ETL", null, List.of()),
+            dag("etl_reports", null, null, List.of()),
+            dag("cleanup", null, "runs after etl", List.of())));
+
+        assertEquals(List.of("etl", "etl_reports", "daily_etl", "cleanup"), dagIds(index.search("ETL", false, 10)));
+    }
+
+    @Test
+    void matchesTagsAndOwnersAndReportsMatchedFields() {
+        index.update(List.of(
+            dag("ingest", null, null, List.of("finance")),
+            dag("export", null, null, List.of())));
+
+        DagSearchResult result = index.search("finance", false, 10);
+
+        assertEquals(List.of("ingest"), dagIds(result));
+        assertEquals(List.of("tags"), result.getHits().get(0).getMatchedFields());
+    }
+
+    @Test
+    void prefixModeOnlyMatchesFieldAndWordStarts() {
+        index.update(List.of(
+            dag("sales_report", null, null, List.of()),
+            dag("presales", null, null, List.of())));
+
+        assertEquals(List.of("sales_report"), dagIds(index.search("sal", true, 10)));
+        assertEquals(Set.of("sales_report", "presales"), Set.copyOf(dagIds(index.search("sal", false, 10))));
+    }
+
+    @Test
+    void shortQueriesUseTheIndexAndFindSubstrings() {
+        index.update(List.of(
+            dag("ab_loader", null, null, List.of()),
+            dag("xab", null, null, List.of()),
+            dag("other", null, null, List.of())));
+
+        assertEquals(List.of("ab_loader", "xab"), dagIds(index.search("ab", false, 10)));
+        assertEquals(List.of("ab_loader"), dagIds(index.search("ab", true, 10)));
+        assertEquals(List.of("xab"), dagIds(index.search("x", false, 10)));
+        assertEquals(List.of(), dagIds(index.search("zq", false, 10)));
+    }
+
+    @Test
+    void updatesRemoveAndReindexDags() {
+        index.update(List.of(dag("alpha", null, "first", List.of()), dag("beta", null, null, List.of())));
+        index.update(List.of(dag("alpha", null, "second", List.of())));
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(), dagIds(index.search("first", false, 10)));
+        assertEquals(List.of("alpha"), dagIds(index.search("second", false, 10)));
+        assertEquals(List.of(), dagIds(index.search("be", false, 10)));
+    }
+
+    @Test
+    void searchSkipsInactiveDagsAndHonoursTheLimit() {
+        Dag inactive = dag("job_old", null, null, List.of());
+        inactive.setIsActive(false);
+        index.update(List.of(dag("job_a", null, null, List.of()), dag("job_b", null, null, List.of()), inactive));
+
+        DagSearchResult result = index.search("job", false, 1);
+        assertEquals(2, result.getTotalMatches());
+        assertEquals(1, result.getHits().size());
+        assertTrue(index.search("job", false, -1).getHits().isEmpty());
+        assertTrue(index.matchingDagIds("job").contains("job_old"));
+    }
+
+    @Test
+    void normalizesIndependentlyOfTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            index.update(List.of(dag("INVOICES", null, null, List.of())));
+            assertEquals(List.of("INVOICES"), dagIds(index.search("invoices", false, 10)));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static Dag dag(String dagId, String displayName, String description, List<String> tags) {
+        Dag dag = new Dag();
+        dag.setDagId(dagId);
+        dag.setDagDisplayName(displayName);
+        dag.setDescription(description);
+        dag.setIsActive(true);
+        dag.setTags(tags.stream().map(name -> {
+            Tag tag = new Tag();
+            tag.setName(name);
+            return tag;
+        }).toList());
+        return dag;
+    }
+
+    private static List<String> dagIds(DagSearchResult result) {
+        return result.getHits().stream().map(DagSearchHit::getDagId).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package com.yigit.airflow_spring_rest_controller.service.watch;
+
+import com.yigit.airflow_spring_rest_controller.dto.dagrun.DagRun;
+import com.yigit.airflow_spring_rest_controller.dto.dagrun.DagRunCollection;
+import com.yigit.airflow_spring_rest_controller.dto.watch.StateChange;
+import com.yigit.airflow_spring_rest_controller.dto.watch.WatchEvent;
+import com.yigit.airflow_spring_rest_controller.service.DagRunService;
+import com.yigit.airflow_spring_rest_controller.service.TaskInstanceService;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StateWatchServiceTest {
+
+    private final DagRunService dagRunService = mock(DagRunService.class);
+    private final TaskInstanceService taskInstanceService = mock(TaskInstanceService.class);
+    private final StateWatchService service = new StateWatchService(
+        dagRunService, taskInstanceService, Duration.ofMillis(10), Duration.ofMillis(10), 1.0, 2);
+
+    @Test
+    void subscriberCancellingBeforeTheJoinCompletesStartsNoPoller() {
+        AtomicInteger polls = new AtomicInteger();
+        when(dagRunService.getDagRuns(eq("example"), anyMap()))
+            .thenAnswer(invocation -> Mono.fromSupplier(() -> {
+                polls.incrementAndGet();
+                return runs("run_1");
+            }));
+
+        service.watchDag("example").subscribe(new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                cancel();
+            }
+        });
+
+        assertEquals(0, polls.get());
+        assertEquals(0, service.stats().getWatches());
+        assertEquals(0, service.stats().getPolls());
+    }
+
+    @Test
+    void runsPushedOutOfTheWindowAreNotReportedAsRemoved() {
+        List<DagRunCollection> polls = new ArrayList<>(List.of(
+            runs("run_2", "run_1"),
+            runs("run_3", "run_2")));
+        when(dagRunService.getDagRuns(eq("example"), anyMap()))
+            .thenAnswer(invocation -> Mono.just(polls.size() > 1 ? polls.remove(0) : polls.get(0)));
+
+        StepVerifier.create(service.watchDag("example"))
+            .assertNext(event -> assertEquals(WatchEvent.SNAPSHOT, event.getType()))
+            .assertNext(event -> {
+                assertEquals(WatchEvent.TRANSITION, event.getType());
+                assertEquals(List.of("run_3"), event.getChanges().stream().map(StateChange::getId).toList());
+            })
+            .expectNoEvent(Duration.ofMillis(100))
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    void runsDeletedWithinTheWindowAreReportedAsRemoved() {
+        List<DagRunCollection> polls = new ArrayList<>(List.of(
+            runs("run_3", "run_2"),
+            runs("run_3", "run_1"),
+            runs("run_1")));
+        when(dagRunService.getDagRuns(eq("example"), anyMap()))
+            .thenAnswer(invocation -> Mono.just(polls.size() > 1 ? polls.remove(0) : polls.get(0)));
+
+        StepVerifier.create(service.watchDag("example"))
+            .assertNext(event -> assertEquals(WatchEvent.SNAPSHOT, event.getType()))
+            .assertNext(event -> {
+                // run_2 was deleted, run_1 moved into the window
+                StateChange removed = event.getChanges().stream()
+                    .filter(change -> change.getId().equals("run_2")).findFirst().orElseThrow();
+                assertEquals("running", removed.getPreviousState());
+                assertEquals(null, removed.getState());
+            })
+            .assertNext(event -> {
+                // Fewer runs than the limit, so every missing run was deleted
+                assertEquals(List.of("run_3"), event.getChanges().stream().map(StateChange::getId).toList());
+                assertEquals(null, event.getChanges().get(0).getState());
+            })
+            .thenCancel()
+            .verify();
+    }
+
+    private static DagRunCollection runs(String... dagRunIds) {
+        List<DagRun> dagRuns = new ArrayList<>();
+        for (String dagRunId : dagRunIds) {
+            DagRun dagRun = new DagRun();
+            dagRun.setDagRunId(dagRunId);
+            dagRun.setState("running");
+            // run_<n> is executed on day n
+            dagRun.setExecutionDate(ZonedDateTime.of(2024, 1, Integer.parseInt(dagRunId.substring(4)), 0, 0, 0, 0, ZoneOffset.UTC));
+            dagRuns.add(dagRun);
+        }
+        DagRunCollection collection = new DagRunCollection();
+        collection.setDagRuns(dagRuns);
+        return collection;
+    }
+}
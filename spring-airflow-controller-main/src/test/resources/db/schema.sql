@@ -9,6 +9,7 @@ CREATE TABLE IF NOT EXISTS users (
     first_name VARCHAR(255),
     last_name VARCHAR(255),
     email VARCHAR(255),
+    sync_hash VARCHAR(64),
     CONSTRAINT uk_users_username UNIQUE (username)
 );
 
@@ -30,7 +31,30 @@ CREATE TABLE IF NOT EXISTS audit_logs (
 );
 
 -- Audit logs indekslerini oluştur
-CREATE INDEX IF NOT EXISTS idx_audit_logs_user_id ON audit_logs(user_id);
-CREATE INDEX IF NOT EXISTS idx_audit_logs_dag_id ON audit_logs(dag_id);
-CREATE INDEX IF NOT EXISTS idx_audit_logs_operation ON audit_logs(operation);
-CREATE INDEX IF NOT EXISTS idx_audit_logs_operation_time ON audit_logs(operation_time); 
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_audit_logs_user_time ON audit_logs(user_id, operation_time DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_dag_time ON audit_logs(dag_id, operation_time DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_user_dag_time ON audit_logs(user_id, dag_id, operation_time DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_operation_time ON audit_logs(operation, operation_time DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_dag_run_time ON audit_logs(dag_run_id, operation_time DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_time ON audit_logs(operation_time DESC, id DESC); 
+
+-- Hourly audit counts
+CREATE TABLE IF NOT EXISTS audit_log_rollups (
+    bucket_start TIMESTAMP NOT NULL,
+    operation VARCHAR(50) NOT NULL,
+    dag_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    count BIGINT NOT NULL,
+    CONSTRAINT pk_audit_log_rollups PRIMARY KEY (bucket_start, operation, dag_id, user_id)
+);
+
+-- Background job leases
+CREATE TABLE IF NOT EXISTS job_leases (
+    name VARCHAR(100) PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    token VARCHAR(36) NOT NULL,
+    acquired_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_run_at TIMESTAMP WITH TIME ZONE
+);